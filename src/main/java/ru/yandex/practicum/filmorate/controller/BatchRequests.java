@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import ru.yandex.practicum.filmorate.dto.BatchItemResultDto;
+import ru.yandex.practicum.filmorate.service.BatchItemResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validates every item of a bulk request on its own and reports the outcome per request index.
+ */
+final class BatchRequests {
+
+    private BatchRequests() {
+    }
+
+    static <S, M, D> List<BatchItemResultDto<D>> process(List<S> items,
+                                                         Validator validator,
+                                                         Function<S, M> toModel,
+                                                         Function<List<M>, List<BatchItemResult<M>>> create,
+                                                         Function<M, D> toDto) {
+        List<BatchItemResultDto<D>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        List<M> models = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            S item = items.get(i);
+            String error = item == null ? "Item is empty" : describe(validator.validate(item));
+            if (error != null) {
+                results.set(i, failed(i, error));
+            } else {
+                validIndexes.add(i);
+                models.add(toModel.apply(item));
+            }
+        }
+
+        List<BatchItemResult<M>> created = create.apply(models);
+        for (int j = 0; j < validIndexes.size(); j++) {
+            int index = validIndexes.get(j);
+            BatchItemResult<M> result = created.get(j);
+            results.set(index, result.isCreated()
+                    ? BatchItemResultDto.<D>builder()
+                    .index(index)
+                    .status(BatchItemResultDto.CREATED)
+                    .item(toDto.apply(result.getItem()))
+                    .build()
+                    : failed(index, result.getError()));
+        }
+        return results;
+    }
+
+    private static <S> String describe(Set<ConstraintViolation<S>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static <D> BatchItemResultDto<D> failed(int index, String error) {
+        return BatchItemResultDto.<D>builder()
+                .index(index)
+                .status(BatchItemResultDto.FAILED)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of hot read endpoints kept as encoded bytes, optionally also gzipped. An entry
+ * remembers the {@link ContentVersions.Version} it was built from and is only served while that
+ * version is current, so the write paths that bump versions invalidate it; a hit writes the stored
+ * array without mapping or serializing anything. At most {@code max-entries} keys are kept, least
+ * recently used first out.
+ * <p>
+ * The gzipped and identity bodies are different representations, so clients that accept gzip get
+ * the version's ETag with a {@code -gzip} suffix.
+ */
+@Component
+class EncodedResponseCache {
+
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final boolean gzip;
+
+    private final Map<String, CachedBody> entries;
+
+    @Autowired
+    EncodedResponseCache(ObjectMapper objectMapper,
+                         @Value("${filmorate.response-cache.enabled:true}") boolean enabled,
+                         @Value("${filmorate.response-cache.gzip:true}") boolean gzip,
+                         @Value("${filmorate.response-cache.max-entries:256}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzip = gzip;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Body for {@code key} at {@code version}, or {@code null} after a 304; {@code body} is only
+     * called on a miss and must read data no older than {@code version}.
+     */
+    ResponseEntity<byte[]> get(String key, ContentVersions.Version version, WebRequest request,
+                               Supplier<?> body) {
+        boolean gzipVariant = gzip && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.checkNotModified(gzipVariant ? gzipEtag(version.etag()) : version.etag())) {
+            return null;
+        }
+
+        CachedBody cached = entries.get(key);
+        if (cached == null || cached.sequence() != version.sequence()) {
+            if (cached != null) {
+                entries.remove(key);
+            }
+            cached = encode(version, body.get());
+            if (enabled) {
+                entries.put(key, cached);
+            }
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzipVariant && cached.gzipped() != null) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzipped());
+        }
+        return response.body(cached.json());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private CachedBody encode(ContentVersions.Version version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedBody(version.sequence(), json, gzip && json.length >= MIN_GZIP_SIZE ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode response body", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Whether an Accept-Encoding value allows gzip: an explicit {@code gzip} coding decides by its
+     * q-value, otherwise a {@code *} does.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].strip().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip();
+                if (parameter.length() > 2 && (parameter.startsWith("q=") || parameter.startsWith("Q="))) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    private record CachedBody(long sequence, byte[] json, byte[] gzipped) {
+    }
+}
@@ -1,10 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,14 +24,22 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.controller.mappers.FilmMapper;
 import ru.yandex.practicum.filmorate.controller.mappers.MpaRatingMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.SuggestionMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmJsonRowWriter;
+import ru.yandex.practicum.filmorate.dto.BatchItemResultDto;
 import ru.yandex.practicum.filmorate.dto.CreateFilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.SuggestionDto;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
 @Validated
@@ -38,10 +54,40 @@ public class FilmController {
 
     private final MpaRatingMapper ratingMapper;
 
+    private final SuggestionMapper suggestionMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ContentVersions versions;
+
+    private final EncodedResponseCache responseCache;
+
     @GetMapping
-    public List<FilmDto> findAll() {
-        List<Film> films = service.getFilms();
-        return films.stream().map(filmMapper::map).toList();
+    public ResponseEntity<List<Film>> findAll(
+            @RequestParam(required = false) @PositiveOrZero Integer after,
+            @RequestParam(required = false) @Positive @Max(KeysetPages.MAX_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(service.getFilms());
+        }
+
+        List<Film> films = service.getFilms(after != null ? after : 0, KeysetPages.fetchSize(limit));
+        return KeysetPages.toResponse(films, limit, Film::getId, Function.identity());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAll() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                FilmJsonRowWriter writer = new FilmJsonRowWriter(generator);
+                service.exportFilms(writer);
+                writer.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
@@ -54,6 +100,11 @@ public class FilmController {
         return filmMapper.map(createdFilm);
     }
 
+    @PostMapping("/batch")
+    public List<BatchItemResultDto<FilmDto>> createBatch(@RequestBody List<CreateFilmDto> filmDtos) {
+        return BatchRequests.process(filmDtos, validator, filmMapper::map, service::createAll, filmMapper::map);
+    }
+
     @PutMapping
     public FilmDto updateFilm(@Valid @RequestBody FilmDto filmDto) {
         Film film = filmMapper.map(filmDto);
@@ -62,10 +113,13 @@ public class FilmController {
     }
 
     @GetMapping("/{id}")
-    public FilmDto getFilm(@PathVariable int id) {
-        Film film = service.findFilmById(id);
-        film.setGenres(service.findGenresForFilm(id));
-        return filmMapper.map(film);
+    public Film getFilm(@PathVariable int id, WebRequest request) {
+        ContentVersions.Version version = versions.film(id);
+        service.checkFilmExists(id);
+        if (request.checkNotModified(version.etag())) {
+            return null;
+        }
+        return service.findFilmById(id);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -78,9 +132,25 @@ public class FilmController {
         service.removeLike(id, userId);
     }
 
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam @NotBlank String q,
+                                  @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return service.searchFilms(q, limit);
+    }
+
+    @GetMapping("/autocomplete")
+    public List<SuggestionDto> autocomplete(@RequestParam @NotBlank String prefix,
+                                            @RequestParam(defaultValue = "10") @Positive @Max(50) int limit) {
+        return service.autocompleteFilms(prefix, limit).stream().map(suggestionMapper::map).toList();
+    }
+
     @GetMapping("/popular")
-    public List<FilmDto> getPopularFilms(@RequestParam(defaultValue = "10") @Positive int count) {
-        List<Film> films = service.getMostPopularFilms(count);
-        return films.stream().map(filmMapper::map).toList();
+    public ResponseEntity<byte[]> getPopularFilms(@RequestParam(defaultValue = "10") @Positive int count,
+                                                  @RequestParam(required = false) @Positive Integer genreId,
+                                                  @RequestParam(required = false) Integer year,
+                                                  WebRequest request) {
+        ContentVersions.Version version = versions.popular();
+        return responseCache.get("popular:" + count + ":" + genreId + ":" + year, version, request,
+                () -> service.getMostPopularFilms(count, genreId, year));
     }
 }
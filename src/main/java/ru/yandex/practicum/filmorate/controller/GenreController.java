@@ -2,17 +2,18 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.controller.mappers.GenreMapper;
 import ru.yandex.practicum.filmorate.dto.GenreDto;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/genres")
@@ -23,10 +24,15 @@ public class GenreController {
 
     private final GenreMapper mapper;
 
+    private final ContentVersions versions;
+
+    private final EncodedResponseCache responseCache;
+
     @GetMapping
-    public List<GenreDto> findAllGenres() {
-        List<Genre> genres = service.getGenres();
-        return genres.stream().map(mapper::map).toList();
+    public ResponseEntity<byte[]> findAllGenres(WebRequest request) {
+        ContentVersions.Version version = versions.genres();
+        return responseCache.get("genres", version, request,
+                () -> service.getGenres().stream().map(mapper::map).toList());
     }
 
     @GetMapping("/{id}")
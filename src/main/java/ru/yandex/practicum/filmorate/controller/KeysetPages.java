@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Turns a keyset page fetched with one extra row into a response carrying the next cursor header.
+ */
+final class KeysetPages {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_LIMIT = 100;
+
+    static final int MAX_LIMIT = 1000;
+
+    private KeysetPages() {
+    }
+
+    static int fetchSize(Integer limit) {
+        return (limit != null ? limit : DEFAULT_LIMIT) + 1;
+    }
+
+    static <E, D> ResponseEntity<List<D>> toResponse(List<E> rows,
+                                                     Integer limit,
+                                                     ToIntFunction<E> idGetter,
+                                                     Function<E, D> mapper) {
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (rows.size() <= pageSize) {
+            return ResponseEntity.ok(rows.stream().map(mapper).toList());
+        }
+
+        List<E> page = rows.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(idGetter.applyAsInt(page.getLast())))
+                .body(page.stream().map(mapper).toList());
+    }
+}
@@ -2,17 +2,18 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.controller.mappers.MpaRatingMapper;
 import ru.yandex.practicum.filmorate.dto.MpaRatingDto;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/mpa")
@@ -23,10 +24,15 @@ public class MpaRatingController {
 
     private final MpaRatingMapper mapper;
 
+    private final ContentVersions versions;
+
+    private final EncodedResponseCache responseCache;
+
     @GetMapping
-    public List<MpaRatingDto> findAllMpa() {
-        List<MpaRating> ratings = service.getRatings();
-        return ratings.stream().map(mapper::map).toList();
+    public ResponseEntity<byte[]> findAllMpa(WebRequest request) {
+        ContentVersions.Version version = versions.ratings();
+        return responseCache.get("mpa", version, request,
+                () -> service.getRatings().stream().map(mapper::map).toList());
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+
+@Validated
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+public class RecommendationController {
+
+    private static final int MAX_RECOMMENDATIONS = 1000;
+
+    private final FilmService service;
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable int id,
+                                         @RequestParam(defaultValue = "10") @Positive @Max(MAX_RECOMMENDATIONS)
+                                         int limit) {
+        return service.getRecommendations(id, limit);
+    }
+}
@@ -1,9 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,34 +21,76 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.mappers.SuggestionMapper;
 import ru.yandex.practicum.filmorate.controller.mappers.UserMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.UserJsonRowWriter;
+import ru.yandex.practicum.filmorate.dto.BatchItemResultDto;
 import ru.yandex.practicum.filmorate.dto.CreateUserDto;
+import ru.yandex.practicum.filmorate.dto.SuggestionDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
+@Validated
 @RestController
 @RequestMapping("/users")
 public class UserController {
+    private static final int MAX_SUGGESTIONS = 1000;
+
+    private static final int MAX_COMPLETIONS = 50;
+
     private final UserService service;
 
     private final UserMapper mapper;
 
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final SuggestionMapper suggestionMapper;
+
     @Autowired
-    public UserController(UserService service, UserMapper mapper) {
+    public UserController(UserService service, UserMapper mapper, ObjectMapper objectMapper, Validator validator,
+                          SuggestionMapper suggestionMapper) {
         this.service = service;
         this.mapper = mapper;
+        this.suggestionMapper = suggestionMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     @GetMapping
-    public List<UserDto> findAll() {
-        List<User> users = service.getUsers();
-        return users.stream().map(mapper::map).toList();
+    public ResponseEntity<List<User>> findAll(
+            @RequestParam(required = false) @PositiveOrZero Integer after,
+            @RequestParam(required = false) @Positive @Max(KeysetPages.MAX_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(service.getUsers());
+        }
+
+        List<User> users = service.getUsers(after != null ? after : 0, KeysetPages.fetchSize(limit));
+        return KeysetPages.toResponse(users, limit, User::getId, Function.identity());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAll() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                UserJsonRowWriter writer = new UserJsonRowWriter(generator);
+                service.exportUsers(writer);
+                writer.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
@@ -49,6 +101,11 @@ public class UserController {
         return mapper.map(createdFilm);
     }
 
+    @PostMapping("/batch")
+    public List<BatchItemResultDto<UserDto>> createBatch(@RequestBody List<CreateUserDto> userDtos) {
+        return BatchRequests.process(userDtos, validator, mapper::map, service::createAll, mapper::map);
+    }
+
     @PutMapping
     public UserDto updateUser(@Valid @RequestBody UserDto userDto) {
         User user = mapper.map(userDto);
@@ -56,10 +113,17 @@ public class UserController {
         return mapper.map(updatedUser);
     }
 
+    @GetMapping("/autocomplete")
+    public List<SuggestionDto> autocomplete(@RequestParam @NotBlank String prefix,
+                                            @RequestParam(defaultValue = "10") @Positive @Max(MAX_COMPLETIONS)
+                                            int limit) {
+        return service.autocompleteUsers(prefix, limit).stream()
+                .map(suggestionMapper::map).toList();
+    }
+
     @GetMapping("/{id}")
-    public UserDto getUser(@PathVariable int id) {
-        User user = service.getUser(id);
-        return mapper.map(user);
+    public User getUser(@PathVariable int id) {
+        return service.getUser(id);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -73,15 +137,20 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<UserDto> getFriends(@PathVariable Integer id) {
-        return service.getUserFriends(id).stream()
-                .map(mapper::map).toList();
+    public List<User> getFriends(@PathVariable Integer id) {
+        return service.getUserFriends(id);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Integer id,
+                                           @RequestParam(defaultValue = "10") @Positive @Max(MAX_SUGGESTIONS)
+                                           int limit) {
+        return service.getFriendSuggestions(id, limit);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public List<UserDto> getCommonFriends(@PathVariable Integer id, @PathVariable Integer otherId) {
-        return service.getCommonFriends(id, otherId).stream()
-                .map(mapper::map).toList();
+    public List<User> getCommonFriends(@PathVariable Integer id, @PathVariable Integer otherId) {
+        return service.getCommonFriends(id, otherId);
     }
 
 }
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Decides per request whether Logbook handles it at all. Requests that fail this check are never
+ * buffered, so the include/exclude rules and sampling rates bound the cost of request logging, not
+ * just its volume. The first matching {@code pattern=rate} entry of the path rates wins; other
+ * paths use the default rate.
+ */
+@Component("requestCondition")
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "async", matchIfMissing = true)
+public class HttpLogSampler implements Predicate<HttpRequest> {
+
+    private final PathMatcher matcher = new AntPathMatcher();
+
+    private final List<String> include;
+
+    private final List<String> exclude;
+
+    private final double sampleRate;
+
+    private final List<PathRate> pathRates = new ArrayList<>();
+
+    @Autowired
+    public HttpLogSampler(@Value("${filmorate.http-log.include:/**}") List<String> include,
+                          @Value("${filmorate.http-log.exclude:}") List<String> exclude,
+                          @Value("${filmorate.http-log.sample-rate:0.01}") double sampleRate,
+                          @Value("${filmorate.http-log.path-sample-rates:}") List<String> pathSampleRates) {
+        this.include = include;
+        this.exclude = exclude;
+        this.sampleRate = sampleRate;
+        for (String entry : pathSampleRates) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected pattern=rate, got: " + entry);
+            }
+            pathRates.add(new PathRate(entry.substring(0, separator).trim(),
+                    Double.parseDouble(entry.substring(separator + 1).trim())));
+        }
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        String path = request.getPath();
+        if (!matchesAny(include, path) || matchesAny(exclude, path)) {
+            return false;
+        }
+        double rate = sampleRate;
+        for (PathRate pathRate : pathRates) {
+            if (matcher.match(pathRate.pattern(), path)) {
+                rate = pathRate.rate();
+                break;
+            }
+        }
+        return rate >= 1.0 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private boolean matchesAny(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (!pattern.isBlank() && matcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record PathRate(String pattern, double rate) {
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logbook sink that keeps formatting and log I/O off the request thread. The request thread only
+ * copies what the entry needs, with bodies cut to the size cap, and offers it to a bounded queue;
+ * a background thread writes the entries as JSON. A full queue drops the entry and counts it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "async", matchIfMissing = true)
+public class HttpLogSink implements Sink, MeterBinder {
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxBodySize;
+
+    private final BlockingQueue<HttpLogEntry> entries;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private Thread writer;
+
+    @Autowired
+    public HttpLogSink(ObjectMapper objectMapper,
+                       @Value("${filmorate.http-log.max-body-size:1024}") int maxBodySize,
+                       @Value("${filmorate.http-log.queue-capacity:1024}") int queueCapacity) {
+        this.objectMapper = objectMapper;
+        this.maxBodySize = maxBodySize;
+        this.entries = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Thread.ofPlatform().name("http-log-writer").daemon().start(this::writeEntries);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.interrupt();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) {
+        // Requests are logged together with their responses
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        HttpLogEntry entry = new HttpLogEntry(correlation.getId(), request.getMethod(), request.getRequestUri(),
+                response.getStatus(), correlation.getDuration().toMillis(),
+                body(request), body(response));
+        if (!entries.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedEntries() {
+        return dropped.sum();
+    }
+
+    public int getQueuedEntries() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.http.log.dropped", this, HttpLogSink::getDroppedEntries)
+                .description("HTTP log entries dropped because the writer queue was full")
+                .register(registry);
+        Gauge.builder("filmorate.http.log.queued", this, HttpLogSink::getQueuedEntries)
+                .register(registry);
+    }
+
+    private Body body(HttpMessage message) throws IOException {
+        byte[] body = message.getBody();
+        if (body.length == 0) {
+            return new Body(0, false, null);
+        }
+        if (message.getHeaders().getFirst("Content-Encoding") != null) {
+            return new Body(body.length, true, null);
+        }
+        return Body.of(body, message.getCharset(), maxBodySize);
+    }
+
+    private void writeEntries() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                HttpLogEntry entry = entries.take();
+                try {
+                    log.info(objectMapper.writeValueAsString(entry));
+                } catch (JsonProcessingException e) {
+                    log.warn("Could not write HTTP log entry {}", entry.id(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record HttpLogEntry(String id, String method, String uri, int status, long durationMs,
+                               Body request, Body response) {
+    }
+
+    /**
+     * Message body cut to the size cap; {@code size} is the full length in bytes. Compressed bodies
+     * are counted but not logged.
+     */
+    public record Body(int size, boolean truncated, String content) {
+
+        /**
+         * Decodes at most {@code maxChars} characters of the body. The decoder stops at a whole
+         * character, so the cut never splits a multi-byte sequence or a surrogate pair.
+         */
+        public static Body of(byte[] body, Charset charset, int maxChars) {
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ByteBuffer in = ByteBuffer.wrap(body);
+            CharBuffer out = CharBuffer.allocate(Math.max(maxChars, 0));
+            decoder.decode(in, out, true);
+            boolean truncated = in.hasRemaining();
+            if (!truncated) {
+                decoder.flush(out);
+            }
+            return new Body(body.length, truncated, out.flip().toString());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Keeps Logbook from buffering streamed exchanges. Logbook decides on buffering before the
+ * response is written, so an NDJSON export would otherwise be copied into memory in full only to
+ * be cut to the body size cap; and the request stream of an async response is already closed by
+ * the time the entry is written.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "async", matchIfMissing = true)
+public class HttpLogStrategy implements Strategy {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return isStreamed(request) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isStreamed(request) ? response.withoutBody() : response.withBody();
+    }
+
+    private static boolean isStreamed(HttpRequest request) {
+        List<String> accept = request.getHeaders().get(HttpHeaders.ACCEPT);
+        return accept != null && accept.stream().anyMatch(value -> value.contains(NDJSON));
+    }
+}
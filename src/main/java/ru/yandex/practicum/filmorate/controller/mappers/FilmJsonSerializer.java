@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.controller.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Film} in the {@code FilmDto} JSON shape straight from the model, so read
+ * endpoints can return films without copying them into DTOs first. Missing genres are written
+ * as an empty array, as {@link FilmMapper} does.
+ */
+@JsonComponent
+public class FilmJsonSerializer extends StdSerializer<Film> {
+
+    public FilmJsonSerializer() {
+        super(Film.class);
+    }
+
+    @Override
+    public void serialize(Film film, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", film.getId());
+        generator.writeStringField("name", film.getName());
+        generator.writeStringField("description", film.getDescription());
+        writeMpa(film.getMpa(), generator);
+        serializers.defaultSerializeField("releaseDate", film.getReleaseDate(), generator);
+        generator.writeNumberField("duration", film.getDuration());
+        generator.writeArrayFieldStart("genres");
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", genre.getId());
+                generator.writeStringField("name", genre.getName());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeMpa(MpaRating mpa, JsonGenerator generator) throws IOException {
+        if (mpa == null) {
+            generator.writeNullField("mpa");
+            return;
+        }
+        generator.writeObjectFieldStart("mpa");
+        generator.writeNumberField("id", mpa.getId());
+        generator.writeStringField("name", mpa.getName());
+        generator.writeEndObject();
+    }
+}
@@ -3,19 +3,30 @@ package ru.yandex.practicum.filmorate.controller.mappers;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.dto.GenreDto;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.utils.IdInterner;
 
 import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
 public class GenreMapper {
 
+    /**
+     * Response DTOs shared by every film with the genre; they are only serialized, never modified.
+     */
+    private final IdInterner<GenreDto> dtos = new IdInterner<>();
+
     public GenreDto map(Genre genre) {
-        return GenreDto.builder()
+        GenreDto dto = dtos.get(genre.getId());
+        if (dto != null && Objects.equals(dto.getName(), genre.getName())) {
+            return dto;
+        }
+        return dtos.put(genre.getId(), GenreDto.builder()
                 .id(genre.getId())
                 .name(genre.getName())
-                .build();
+                .build());
     }
 
     public Genre map(GenreDto genre) {
@@ -3,15 +3,27 @@ package ru.yandex.practicum.filmorate.controller.mappers;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.dto.MpaRatingDto;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.utils.IdInterner;
+
+import java.util.Objects;
 
 @Component
 public class MpaRatingMapper {
 
+    /**
+     * Response DTOs shared by every film with the rating; they are only serialized, never modified.
+     */
+    private final IdInterner<MpaRatingDto> dtos = new IdInterner<>();
+
     public MpaRatingDto map(MpaRating mpa) {
-        return MpaRatingDto.builder()
+        MpaRatingDto dto = dtos.get(mpa.getId());
+        if (dto != null && Objects.equals(dto.getName(), mpa.getName())) {
+            return dto;
+        }
+        return dtos.put(mpa.getId(), MpaRatingDto.builder()
                 .id(mpa.getId())
                 .name(mpa.getName())
-                .build();
+                .build());
     }
 
     public MpaRating map(MpaRatingDto mpa) {
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.controller.mappers;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.SuggestionDto;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
+
+@Component
+public class SuggestionMapper {
+
+    public SuggestionDto map(PrefixIndex.Completion completion) {
+        return SuggestionDto.builder()
+                .id(completion.id())
+                .text(completion.text())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link User} in the {@code UserDto} JSON shape straight from the model.
+ */
+@JsonComponent
+public class UserJsonSerializer extends StdSerializer<User> {
+
+    public UserJsonSerializer() {
+        super(User.class);
+    }
+
+    @Override
+    public void serialize(User user, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+        if (user.getId() != null) {
+            generator.writeNumberField("id", user.getId());
+        } else {
+            generator.writeNullField("id");
+        }
+        generator.writeStringField("name", user.getName());
+        generator.writeStringField("login", user.getLogin());
+        generator.writeStringField("email", user.getEmail());
+        serializers.defaultSerializeField("birthday", user.getBirthday(), generator);
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks storage methods that stream a whole table to a client. They hold a connection for as long as the
+ * client keeps reading, so {@link StorageBulkhead} gates them by a separate, smaller limit.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExportRead {
+}
@@ -1,28 +1,82 @@
 package ru.yandex.practicum.filmorate.dal;
 
+import org.springframework.jdbc.core.RowCallbackHandler;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.utils.IntPairConsumer;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FilmStorage {
     List<Film> findAllFilms();
 
+    List<Film> findFilmsPage(int afterId, int limit);
+
+    @ExportRead
+    void streamFilms(RowCallbackHandler handler);
+
     Film add(Film film);
 
+    List<Film> addAll(List<Film> films);
+
     void remove(Integer filmId);
 
+    /**
+     * Drops a film from the in-memory indexes only, for ids handed out by an insert that was rolled back.
+     */
+    void forgetFilm(int filmId);
+
     Film update(Film film);
 
+    @InMemoryRead
     boolean containsFilm(Integer filmId);
 
+    @InMemoryRead
+    IdIndexMismatches getIdIndexMismatches();
+
     Optional<Film> findFilmById(int id);
 
+    List<Film> findFilmsByIds(Collection<Integer> ids);
+
+    @InMemoryRead
+    List<PrefixIndex.Completion> autocomplete(String prefix, int limit);
+
     void addLike(int filmId, int userId);
 
-    void removeLike(int filmId, int userId);
+    boolean removeLike(int filmId, int userId);
+
+    Map<Integer, Integer> applyLikeChanges(List<int[]> added, List<int[]> removed);
 
-    List<Film> getMostPopularFilms(int size);
+    Map<Integer, Integer> getLikeCounts();
+
+    void forEachLikeTally(LikeTallyConsumer likeTally);
+
+    /**
+     * Resets films.like_count of the given films to their film_likes count.
+     */
+    void recountLikes(Collection<Integer> filmIds);
+
+    Map<Integer, Integer> getReleaseYears();
+
+    void forEachLikeByUser(IntPairConsumer userAndFilm);
+
+    void forEachFilmText(FilmTextConsumer filmText);
 
     void removeAll();
+
+    /**
+     * Receives a film's denormalized like_count next to the number of its rows in film_likes.
+     */
+    @FunctionalInterface
+    interface LikeTallyConsumer {
+        void accept(int filmId, int likeCount, int filmLikes);
+    }
+
+    @FunctionalInterface
+    interface FilmTextConsumer {
+        void accept(int filmId, String name, String description);
+    }
 }
@@ -2,18 +2,33 @@ package ru.yandex.practicum.filmorate.dal;
 
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.utils.IntPairConsumer;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface GenreStorage {
+    @InMemoryRead
     List<Genre> findAllGenres();
 
+    @InMemoryRead
     boolean containsGenre(Integer genreId);
 
+    @InMemoryRead
     Optional<Genre> findGenreById(int id);
 
     void addGenresOfFilm(Film film);
 
+    void addGenresOfFilms(List<Film> films);
+
     List<Genre> findGenresForFilm(int filmId);
+
+    Map<Integer, LinkedHashSet<Genre>> findGenresForFilms(Collection<Integer> filmIds);
+
+    void forEachFilmGenre(IntPairConsumer filmAndGenre);
+
+    void refresh();
 }
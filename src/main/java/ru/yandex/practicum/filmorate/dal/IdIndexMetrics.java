@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the id index mismatch counts of the film and user storages as
+ * {@code filmorate.id_index.mismatches}, tagged by entity and by kind of disagreement.
+ */
+@Component
+public class IdIndexMetrics implements MeterBinder {
+
+    private final FilmStorage filmStorage;
+
+    private final UserStorage userStorage;
+
+    @Autowired
+    public IdIndexMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "film", filmStorage::getIdIndexMismatches);
+        register(registry, "user", userStorage::getIdIndexMismatches);
+    }
+
+    private static void register(MeterRegistry registry, String entity, Supplier<IdIndexMismatches> mismatches) {
+        register(registry, entity, "stale", mismatches, IdIndexMismatches::stale);
+        register(registry, entity, "missing", mismatches, IdIndexMismatches::missing);
+    }
+
+    private static void register(MeterRegistry registry, String entity, String kind,
+                                 Supplier<IdIndexMismatches> mismatches, ToLongFunction<IdIndexMismatches> count) {
+        FunctionCounter.builder("filmorate.id_index.mismatches", mismatches, source -> count.applyAsLong(source.get()))
+                .description("Id index answers the database contradicted")
+                .tags("entity", entity, "kind", kind)
+                .register(registry);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.dal;
+
+/**
+ * Running counts of id index disagreements with the database: {@code stale} ids the index held
+ * but the database did not, {@code missing} ids the database held but the index did not.
+ */
+public record IdIndexMismatches(long stale, long missing) {
+}
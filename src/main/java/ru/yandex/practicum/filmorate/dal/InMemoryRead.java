@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks storage methods answered from in-memory indexes, which do not take a {@link StorageBulkhead} permit.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InMemoryRead {
+}
@@ -7,10 +7,15 @@ import java.util.Optional;
 
 public interface RatingStorage {
 
+    @InMemoryRead
     List<MpaRating> findAllMpaRatings();
 
+    @InMemoryRead
     boolean containsRating(Integer ratingId);
 
+    @InMemoryRead
     Optional<MpaRating> findMpaRatingById(int id);
 
+    void refresh();
+
 }
@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.yandex.practicum.filmorate.exception.BulkheadFullException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Caps the number of threads inside the storage layer at once. With virtual threads a request
+ * costs almost nothing, so without this cap every request would queue on the JDBC pool with a
+ * connection timeout; here excess callers wait on a fair semaphore for a bounded time and then
+ * fail fast with {@link BulkheadFullException}. Methods marked {@link InMemoryRead} are not gated.
+ * <p>
+ * Programmatic transactions are gated too: a {@link TransactionOperations} callback takes its connection
+ * before any storage call, so it holds a permit for the whole transaction and the storage calls inside it
+ * do not take another one. Methods marked {@link ExportRead} hold their connection for the whole download
+ * and use a separate pool of permits, so slow clients cannot take the permits of ordinary calls. Both limits
+ * together are kept within the JDBC pool size.
+ */
+@Slf4j
+@Component
+public class StorageBulkhead implements BeanPostProcessor, Ordered, MeterBinder {
+
+    static final List<Class<?>> STORAGES = List.of(
+            FilmStorage.class, UserStorage.class, GenreStorage.class, RatingStorage.class);
+
+    private static final ThreadLocal<Boolean> INSIDE = new ThreadLocal<>();
+
+    private final boolean enabled;
+
+    private final int maxConcurrentCalls;
+
+    private final long maxWaitMs;
+
+    private final int maxConcurrentExports;
+
+    private final Semaphore permits;
+
+    private final Semaphore exportPermits;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public StorageBulkhead(@Value("${filmorate.bulkhead.enabled:true}") boolean enabled,
+                           @Value("${filmorate.bulkhead.max-concurrent-calls:10}") int maxConcurrentCalls,
+                           @Value("${filmorate.bulkhead.max-concurrent-exports:2}") int maxConcurrentExports,
+                           @Value("${filmorate.bulkhead.max-wait-ms:2000}") long maxWaitMs,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.enabled = enabled;
+        this.maxConcurrentExports = Math.max(1, Math.min(maxConcurrentExports, poolSize - 1));
+        int callsWithinPool = Math.max(1, Math.min(maxConcurrentCalls, poolSize - this.maxConcurrentExports));
+        if (enabled && callsWithinPool < maxConcurrentCalls) {
+            log.warn("Bulkhead of {} calls and {} exports exceeds the JDBC pool of {} connections, using {} calls",
+                    maxConcurrentCalls, this.maxConcurrentExports, poolSize, callsWithinPool);
+        }
+        this.maxConcurrentCalls = callsWithinPool;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(this.maxConcurrentCalls, true);
+        this.exportPermits = new Semaphore(this.maxConcurrentExports, true);
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getAvailableExportPermits() {
+        return exportPermits.availablePermits();
+    }
+
+    public int getMaxConcurrentExports() {
+        return maxConcurrentExports;
+    }
+
+    public long getRejectedCalls() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.bulkhead.available.permits", this, StorageBulkhead::getAvailablePermits)
+                .description("Storage calls that can start without waiting")
+                .register(registry);
+        Gauge.builder("filmorate.bulkhead.max.permits", this, StorageBulkhead::getMaxConcurrentCalls)
+                .register(registry);
+        Gauge.builder("filmorate.bulkhead.available.export.permits", this,
+                        StorageBulkhead::getAvailableExportPermits)
+                .description("Exports that can start without waiting")
+                .register(registry);
+        Gauge.builder("filmorate.bulkhead.max.export.permits", this, StorageBulkhead::getMaxConcurrentExports)
+                .register(registry);
+        FunctionCounter.builder("filmorate.bulkhead.rejected", this, StorageBulkhead::getRejectedCalls)
+                .description("Storage calls rejected after waiting for a permit")
+                .register(registry);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof TransactionOperations) {
+            log.debug("Transactions of {} are gated by a bulkhead of {} calls", beanName, maxConcurrentCalls);
+            return Proxy.newProxyInstance(bean.getClass().getClassLoader(),
+                    new Class<?>[]{TransactionOperations.class},
+                    (proxy, method, args) -> method.getDeclaringClass() == Object.class
+                            ? invoke(bean, method, args)
+                            : gated(permits, bean, method, args));
+        }
+        Class<?>[] storages = STORAGES.stream()
+                .filter(storage -> storage.isInstance(bean))
+                .toArray(Class<?>[]::new);
+        if (!enabled || storages.length == 0) {
+            return bean;
+        }
+
+        Set<Method> inMemory = annotated(storages, InMemoryRead.class);
+        Set<Method> exports = annotated(storages, ExportRead.class);
+        log.debug("Storage bean {} is gated by a bulkhead of {} calls and {} exports", beanName, maxConcurrentCalls,
+                maxConcurrentExports);
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(), storages,
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class || inMemory.contains(method)) {
+                        return invoke(bean, method, args);
+                    }
+                    return gated(exports.contains(method) ? exportPermits : permits, bean, method, args);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // After the transactional proxy has been created, so that it ends up inside the bulkhead
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    private Object gated(Semaphore semaphore, Object target, Method method, Object[] args) throws Throwable {
+        if (INSIDE.get() != null) {
+            return invoke(target, method, args);
+        }
+        if (!semaphore.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+            rejected.increment();
+            throw new BulkheadFullException("Storage is busy, " + method.getName() + " was not started within "
+                    + maxWaitMs + " ms");
+        }
+        INSIDE.set(Boolean.TRUE);
+        try {
+            return invoke(target, method, args);
+        } finally {
+            INSIDE.remove();
+            semaphore.release();
+        }
+    }
+
+    private static Set<Method> annotated(Class<?>[] storages, Class<? extends Annotation> annotation) {
+        return Arrays.stream(storages)
+                .flatMap(storage -> Arrays.stream(storage.getMethods()))
+                .filter(method -> method.isAnnotationPresent(annotation))
+                .collect(Collectors.toSet());
+    }
+
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
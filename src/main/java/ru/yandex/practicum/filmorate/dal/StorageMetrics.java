@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every storage method and records how many rows the collection-returning ones give back.
+ * Meters are created once per method when the storage bean is wrapped, so a call only looks up
+ * its {@link MethodMeters} and records two numbers.
+ */
+@Component
+public class StorageMetrics implements BeanPostProcessor, Ordered {
+
+    public static final String CALLS = "filmorate.storage.calls";
+
+    public static final String ROWS = "filmorate.storage.rows";
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public StorageMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?>[] storages = StorageBulkhead.STORAGES.stream()
+                .filter(storage -> storage.isInstance(bean))
+                .toArray(Class<?>[]::new);
+        MeterRegistry meterRegistry = storages.length > 0 ? registry.getIfAvailable() : null;
+        if (meterRegistry == null) {
+            return bean;
+        }
+
+        Map<Method, MethodMeters> meters = new HashMap<>();
+        for (Class<?> storage : storages) {
+            for (Method method : storage.getMethods()) {
+                meters.put(method, new MethodMeters(meterRegistry, storage.getSimpleName(), method));
+            }
+        }
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(), storages,
+                (proxy, method, args) -> {
+                    MethodMeters methodMeters = meters.get(method);
+                    if (methodMeters == null) {
+                        return StorageBulkhead.invoke(bean, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        Object result = StorageBulkhead.invoke(bean, method, args);
+                        methodMeters.recordRows(result);
+                        return result;
+                    } finally {
+                        methodMeters.calls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Inside the bulkhead: the timers measure storage work, not the wait for a permit
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    private static final class MethodMeters {
+
+        private final Timer calls;
+
+        private final DistributionSummary rows;
+
+        MethodMeters(MeterRegistry registry, String storage, Method method) {
+            calls = Timer.builder(CALLS)
+                    .description("Storage method latency")
+                    .tags("storage", storage, "method", method.getName())
+                    .register(registry);
+            rows = returnsRows(method.getReturnType())
+                    ? DistributionSummary.builder(ROWS)
+                    .description("Rows returned by storage methods")
+                    .baseUnit("rows")
+                    .tags("storage", storage, "method", method.getName())
+                    .register(registry)
+                    : null;
+        }
+
+        void recordRows(Object result) {
+            if (rows == null) {
+                return;
+            }
+            if (result instanceof Collection<?> collection) {
+                rows.record(collection.size());
+            } else if (result instanceof Map<?, ?> map) {
+                rows.record(map.size());
+            } else if (result instanceof Optional<?> optional) {
+                rows.record(optional.isPresent() ? 1 : 0);
+            } else if (result instanceof int[] ids) {
+                rows.record(ids.length);
+            }
+        }
+
+        private static boolean returnsRows(Class<?> type) {
+            return Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                    || type == Optional.class || type == int[].class;
+        }
+    }
+}
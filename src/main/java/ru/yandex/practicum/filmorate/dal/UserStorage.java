@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.dal;
 
+import org.springframework.jdbc.core.RowCallbackHandler;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,18 +11,40 @@ public interface UserStorage {
 
     List<User> findAll();
 
+    List<User> findPage(int afterId, int limit);
+
+    @ExportRead
+    void streamAll(RowCallbackHandler handler);
+
     User add(User user);
 
+    List<User> addAll(List<User> users);
+
     User update(User newUser);
 
+    @InMemoryRead
     boolean contains(Integer id);
 
+    @InMemoryRead
+    IdIndexMismatches getIdIndexMismatches();
+
     Optional<User> findById(int id);
 
+    List<User> findByIds(int[] ids);
+
     List<User> getFriendsbyUserId(int userId);
 
+    @InMemoryRead
+    int[] getFriendIds(int userId);
+
+    @InMemoryRead
+    boolean isFriend(int userId, int friendId);
+
     List<User> getCommonFriends(int userId, int friendId);
 
+    @InMemoryRead
+    List<PrefixIndex.Completion> autocomplete(String prefix, int limit);
+
     void addFriendship(Integer userId, Integer friendId);
 
     void removeFriendship(Integer userId, Integer friendId);
@@ -1,36 +1,73 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.IdIndexMismatches;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.utils.IntPairConsumer;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.FILM_NOT_FOUND;
 
+@Slf4j
 @Repository
 @Qualifier("dbFilmStorage")
 public class DbFilmStorage implements FilmStorage {
 
+    private static final String SELECT_FILMS = "SELECT " +
+            "f.film_id AS film_id, " +
+            "f.name AS film_name, " +
+            "f.description AS description, " +
+            "f.release_date AS release_date, " +
+            "f.duration AS duration, " +
+            "r.rating_id AS rating_id, " +
+            "r.rating_name AS rating_name " +
+            "FROM films f " +
+            "INNER JOIN ratings r ON f.mpa_rating_id = r.rating_id ";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String UPDATE_LIKE_COUNT = "UPDATE films SET like_count = like_count + ? WHERE film_id = ?";
+
     private final JdbcTemplate jdbcTemplate;
 
     private final FilmRowMapper filmRowMapper;
 
+    private final IdBitmap filmIds = new IdBitmap();
+
+    /**
+     * Film names for autocomplete, weighted by like count.
+     */
+    private final PrefixIndex titles = new PrefixIndex();
+
     @Autowired
     public DbFilmStorage(JdbcTemplate jdbcTemplate,
                          FilmRowMapper filmRowMapper) {
@@ -38,19 +75,58 @@ public class DbFilmStorage implements FilmStorage {
         this.filmRowMapper = filmRowMapper;
     }
 
+    @PostConstruct
+    public void loadIndexes() {
+        filmIds.clear();
+        List<PrefixIndex.Completion> filmTitles = new ArrayList<>();
+        jdbcTemplate.query("SELECT film_id, name, like_count FROM films", rs -> {
+            int filmId = rs.getInt("film_id");
+            filmIds.add(filmId);
+            filmTitles.add(new PrefixIndex.Completion(filmId, rs.getString("name"), rs.getInt("like_count")));
+        });
+        titles.rebuild(filmTitles);
+    }
+
+    @Override
+    public IdIndexMismatches getIdIndexMismatches() {
+        return filmIds.mismatches();
+    }
+
     @Override
     public List<Film> findAllFilms() {
-        return jdbcTemplate.query("SELECT " +
-                        "f.film_id film_id, " +
-                        "f.name film_name, " +
-                        "f.description description, " +
-                        "f.release_date release_date, " +
-                        "f.duration duration, " +
-                        "r.rating_id rating_id, " +
-                        "r.rating_name rating " +
-                        "FROM films f " +
-                        "INNER JOIN ratings r ON f.mpa_rating_id = r.rating_id; ",
-                filmRowMapper);
+        return jdbcTemplate.query(SELECT_FILMS, filmRowMapper);
+    }
+
+    @Override
+    public List<Film> findFilmsPage(int afterId, int limit) {
+        String sqlQuery = SELECT_FILMS + "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+        return jdbcTemplate.query(sqlQuery, filmRowMapper, afterId, limit);
+    }
+
+    @Override
+    public void streamFilms(RowCallbackHandler handler) {
+        String sqlQuery = "SELECT " +
+                "f.film_id AS film_id, " +
+                "f.name AS film_name, " +
+                "f.description AS description, " +
+                "f.release_date AS release_date, " +
+                "f.duration AS duration, " +
+                "r.rating_id AS rating_id, " +
+                "r.rating_name AS rating_name, " +
+                "g.genre_id AS genre_id, " +
+                "g.genre AS genre_name " +
+                "FROM films f " +
+                "INNER JOIN ratings r ON f.mpa_rating_id = r.rating_id " +
+                "LEFT JOIN films_genres fg ON f.film_id = fg.film_id " +
+                "LEFT JOIN genres g ON fg.genre_id = g.genre_id " +
+                "ORDER BY f.film_id, g.genre_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, handler);
     }
 
     @Override
@@ -76,14 +152,60 @@ public class DbFilmStorage implements FilmStorage {
 
         int generatedId = Objects.requireNonNull(keyHolder.getKey()).intValue();
         film.setId(generatedId);
+        filmIds.add(generatedId);
+        titles.put(generatedId, film.getName());
 
         return film;
     }
 
+    @Override
+    @Transactional
+    public List<Film> addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        String addFilmsSql = "INSERT INTO films (name, description, release_date, duration, mpa_rating_id) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(addFilmsSql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setLong(4, film.getDuration());
+                        ps.setInt(5, film.getMpa().getId());
+                    }
+
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            int generatedId = ((Number) keys.get(i).values().iterator().next()).intValue();
+            films.get(i).setId(generatedId);
+            filmIds.add(generatedId);
+            titles.put(generatedId, films.get(i).getName());
+        }
+        return films;
+    }
+
     @Override
     public void remove(Integer filmId) {
         String deleteFilmSql = "DELETE FROM films WHERE film_id = ?";
         jdbcTemplate.update(deleteFilmSql, filmId);
+        filmIds.remove(filmId);
+        titles.remove(filmId);
+    }
+
+    @Override
+    public void forgetFilm(int filmId) {
+        filmIds.remove(filmId);
+        titles.remove(filmId);
     }
 
     @Override
@@ -101,85 +223,255 @@ public class DbFilmStorage implements FilmStorage {
                 film.getId());
 
         if (rowsAffected == 0) {
+            if (filmIds.contains(film.getId())) {
+                recordStale(film.getId());
+            }
             throw new NotFoundException(FILM_NOT_FOUND + film.getId());
         }
+        if (!filmIds.contains(film.getId())) {
+            recordMissing(film.getId());
+        }
+        titles.put(film.getId(), film.getName());
         return film;
     }
 
     @Override
     public boolean containsFilm(Integer filmId) {
-        String sql = "SELECT COUNT(*) FROM films WHERE film_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId);
-        return count != null && count > 0;
+        return filmId != null && filmIds.contains(filmId);
     }
 
     @Override
     public Optional<Film> findFilmById(int id) {
-        String sqlQuery = "SELECT " +
-                "f.film_id as film_id, " +
-                "f.name as film_name, " +
-                "f.description as description, " +
-                "f.release_date as release_date, " +
-                "f.duration as duration, " +
-                "r.rating_id as rating_id, " +
-                "r.rating_name as rating, " +
-                "FROM films f " +
-                "INNER JOIN ratings r ON f.mpa_rating_id = r.rating_id " +
-                "WHERE f.film_id = ?; ";
-        Film film = jdbcTemplate.queryForObject(sqlQuery, filmRowMapper, id);
-        if (film == null) {
+        if (!filmIds.contains(id)) {
             return Optional.empty();
         }
 
-        return Optional.of(film);
+        String sqlQuery = SELECT_FILMS + "WHERE f.film_id = ?";
+        List<Film> films = jdbcTemplate.query(sqlQuery, filmRowMapper, id);
+        if (films.isEmpty()) {
+            recordStale(id);
+            return Optional.empty();
+        }
+
+        return Optional.of(films.getFirst());
+    }
+
+    @Override
+    public List<Film> findFilmsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sqlQuery = SELECT_FILMS + "WHERE f.film_id = ANY(?)";
+        List<Film> films = jdbcTemplate.query(sqlQuery,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", ids.toArray())),
+                filmRowMapper);
+        for (Film film : films) {
+            if (!filmIds.contains(film.getId())) {
+                recordMissing(film.getId());
+                titles.put(film.getId(), film.getName());
+            }
+        }
+        return films;
+    }
+
+    /**
+     * Films whose name starts with the prefix, most liked first.
+     */
+    @Override
+    public List<PrefixIndex.Completion> autocomplete(String prefix, int limit) {
+        return titles.complete(prefix, limit);
     }
 
     @Override
+    @Transactional
     public void addLike(int filmId, int userId) {
         String sql = "INSERT INTO film_likes (film_id, liked_user_id) VALUES (?, ?)";
 
         jdbcTemplate.update(sql, filmId, userId);
+        jdbcTemplate.update(UPDATE_LIKE_COUNT, 1, filmId);
+        titles.addWeight(filmId, 1);
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND liked_user_id = ?";
 
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(UPDATE_LIKE_COUNT, -1, filmId);
+        titles.addWeight(filmId, -1);
+        return true;
     }
 
+    /**
+     * Applies buffered like state in one transaction. Both statements are idempotent, so replaying
+     * already applied pairs is harmless, and like_count moves only by the rows that actually changed.
+     */
     @Override
-    public List<Film> getMostPopularFilms(int size) {
-        String filmsSql = "SELECT " +
-                "f.film_id AS film_id, " +
-                "f.name AS film_name, " +
-                "f.description AS description, " +
-                "f.release_date AS release_date, " +
-                "f.duration AS duration, " +
-                "r.rating_id AS rating_id, " +
-                "r.rating_name AS rating_name, " +
-                "g.genre_id AS genre_id, " +
-                "g.genre AS genre_name " +
-                "FROM films AS f " +
-                "JOIN film_likes fl ON f.film_id = fl.film_id " +
-                "JOIN ratings r ON r.rating_id = f.mpa_rating_id " +
-                "JOIN films_genres fg ON f.film_id = fg.film_id " +
-                "JOIN genres g ON fg.genre_id = g.genre_id " +
-                "GROUP BY f.film_id, f.name, f.description, f.release_date, f.duration, r.rating_id, r.rating_name, g.genre_id, g.genre " +
-                "ORDER BY COUNT(fl.liked_user_id) DESC " +
-                "LIMIT ?";
+    @Transactional
+    public Map<Integer, Integer> applyLikeChanges(List<int[]> added, List<int[]> removed) {
+        String insertSql = "INSERT INTO film_likes (film_id, liked_user_id) " +
+                "SELECT f.film_id, u.user_id FROM films f, users u " +
+                "WHERE f.film_id = ? AND u.user_id = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = f.film_id AND liked_user_id = u.user_id)";
+        String deleteSql = "DELETE FROM film_likes WHERE film_id = ? AND liked_user_id = ?";
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        int[] inserted = batchLikes(insertSql, added);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                deltas.merge(added.get(i)[0], 1, Integer::sum);
+            }
+        }
+        int[] deleted = batchLikes(deleteSql, removed);
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deltas.merge(removed.get(i)[0], -1, Integer::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+
+        List<Map.Entry<Integer, Integer>> changes = List.copyOf(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_LIKE_COUNT, new BatchPreparedStatementSetter() {
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, changes.get(i).getValue());
+                ps.setInt(2, changes.get(i).getKey());
+            }
 
-        return jdbcTemplate.query(filmsSql, filmRowMapper, size);
+            public int getBatchSize() {
+                return changes.size();
+            }
+        });
+        deltas.forEach(titles::addWeight);
+        return deltas;
+    }
+
+    @Override
+    public void recountLikes(Collection<Integer> filmIds) {
+        String sql = "UPDATE films SET like_count = " +
+                "(SELECT COUNT(*) FROM film_likes WHERE film_id = ?) WHERE film_id = ?";
+
+        List<Integer> ids = List.copyOf(filmIds);
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, ids.get(i));
+                ps.setInt(2, ids.get(i));
+            }
+
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+        String countSql = "SELECT film_id, like_count FROM films WHERE film_id = ANY(?)";
+        jdbcTemplate.query(countSql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", ids.toArray())),
+                rs -> {
+                    titles.setWeight(rs.getInt("film_id"), rs.getInt("like_count"));
+                });
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count FROM films", rs -> {
+            likeCounts.put(rs.getInt("film_id"), rs.getInt("like_count"));
+        });
+        return likeCounts;
+    }
+
+    @Override
+    public void forEachLikeTally(LikeTallyConsumer likeTally) {
+        String sql = "SELECT f.film_id, f.like_count, COUNT(fl.liked_user_id) AS film_likes " +
+                "FROM films f " +
+                "LEFT JOIN film_likes fl ON fl.film_id = f.film_id " +
+                "GROUP BY f.film_id, f.like_count";
+
+        jdbcTemplate.query(sql, rs -> {
+            likeTally.accept(rs.getInt("film_id"), rs.getInt("like_count"), rs.getInt("film_likes"));
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> getReleaseYears() {
+        Map<Integer, Integer> releaseYears = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, EXTRACT(YEAR FROM release_date) AS release_year FROM films", rs -> {
+            releaseYears.put(rs.getInt("film_id"), rs.getInt("release_year"));
+        });
+        return releaseYears;
+    }
+
+    /**
+     * Streams every like as (user, film), ordered by user and then film.
+     */
+    @Override
+    public void forEachLikeByUser(IntPairConsumer userAndFilm) {
+        String sql = "SELECT liked_user_id, film_id FROM film_likes ORDER BY liked_user_id, film_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            userAndFilm.accept(rs.getInt("liked_user_id"), rs.getInt("film_id"));
+        });
+    }
+
+    @Override
+    public void forEachFilmText(FilmTextConsumer filmText) {
+        String sql = "SELECT film_id, name, description FROM films ORDER BY film_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            filmText.accept(rs.getInt("film_id"), rs.getString("name"), rs.getString("description"));
+        });
     }
 
     @Override
     public void removeAll() {
         String removeFilmsSql = "DELETE FROM films";
         jdbcTemplate.update(removeFilmsSql);
+        filmIds.clear();
+        titles.clear();
     }
 
     public List<Integer> getLikesByFilmId(Integer filmId) {
         String sqlQuery = "SELECT liked_user_id FROM film_likes WHERE film_id = ?";
         return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> rs.getInt("liked_user_id"), filmId);
     }
+
+    private int[] batchLikes(String sql, List<int[]> likes) {
+        if (likes.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, likes.get(i)[0]);
+                ps.setInt(2, likes.get(i)[1]);
+            }
+
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+    }
+
+    private void recordStale(int filmId) {
+        filmIds.remove(filmId);
+        titles.remove(filmId);
+        log.warn("Film id index disagreed with the database for film {}, {} mismatches so far",
+                filmId, filmIds.recordStale());
+    }
+
+    private void recordMissing(int filmId) {
+        filmIds.add(filmId);
+        log.warn("Film id index was missing film {} found in the database, {} missing ids so far",
+                filmId, filmIds.recordMissing());
+    }
 }
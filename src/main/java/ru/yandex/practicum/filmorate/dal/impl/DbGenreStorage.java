@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,13 +11,19 @@ import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.utils.IntPairConsumer;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Slf4j
 @Repository
 public class DbGenreStorage implements GenreStorage {
 
@@ -23,55 +31,65 @@ public class DbGenreStorage implements GenreStorage {
 
     private final GenreRowMapper genreRowMapper;
 
+    private volatile IdIndexedSnapshot<Genre> genres;
+
     @Autowired
     public DbGenreStorage(JdbcTemplate jdbcTemplate, GenreRowMapper genreRowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.genreRowMapper = genreRowMapper;
     }
 
+    @PostConstruct
+    @Override
+    public void refresh() {
+        List<Genre> rows = jdbcTemplate.query("SELECT * FROM genres ORDER BY genre_id", genreRowMapper);
+        genres = IdIndexedSnapshot.of(rows, Genre::getId);
+    }
+
     @Override
     public List<Genre> findAllGenres() {
-        return jdbcTemplate.query("SELECT * FROM genres", genreRowMapper);
+        return snapshot().all();
     }
 
     @Override
     public boolean containsGenre(Integer genreId) {
-        String sql = "SELECT COUNT(*) FROM genres WHERE genre_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, genreId);
-        return count != null && count > 0;
+        return genreId != null && snapshot().contains(genreId);
     }
 
     @Override
     public Optional<Genre> findGenreById(int id) {
-        String sqlQuery = "SELECT * FROM genres WHERE genre_id = ?";
-        try {
-            Genre genre = jdbcTemplate.queryForObject(sqlQuery, genreRowMapper, id);
-            return Optional.ofNullable(genre);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        return snapshot().find(id);
     }
 
     @Override
     public void addGenresOfFilm(Film film) {
+        addGenresOfFilms(List.of(film));
+    }
+
+    @Override
+    public void addGenresOfFilms(List<Film> films) {
         String addFilmGenre = "MERGE INTO films_genres (film_id, genre_id) VALUES (?, ?)";
 
-        List<Genre> genres = film.getGenres().stream().toList();
-        if (genres.isEmpty()) {
+        List<int[]> filmGenres = films.stream()
+                .flatMap(film -> film.getGenres().stream()
+                        .map(genre -> new int[]{film.getId(), genre.getId()}))
+                .toList();
+        if (filmGenres.isEmpty()) {
             return;
         }
-        checkGenres(genres);
+        checkGenres(films.stream()
+                .flatMap(film -> film.getGenres().stream())
+                .toList());
 
-        Integer filmId = film.getId();
         jdbcTemplate.batchUpdate(addFilmGenre,
                 new BatchPreparedStatementSetter() {
                     public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        ps.setInt(1, filmId);
-                        ps.setInt(2, genres.get(i).getId());
+                        ps.setInt(1, filmGenres.get(i)[0]);
+                        ps.setInt(2, filmGenres.get(i)[1]);
                     }
 
                     public int getBatchSize() {
-                        return genres.size();
+                        return filmGenres.size();
                     }
 
                 });
@@ -79,31 +97,81 @@ public class DbGenreStorage implements GenreStorage {
 
     @Override
     public List<Genre> findGenresForFilm(int filmId) {
-        String genres = "SELECT g.genre_id genre_id, g.genre genre " +
-                "FROM films_genres fg " +
-                "INNER JOIN genres g " +
-                "ON fg.genre_id = g.genre_id " +
-                "WHERE fg.film_id = ?";
+        String genreIds = "SELECT genre_id FROM films_genres WHERE film_id = ? ORDER BY genre_id";
+
+        List<Genre> genresOfFilm = new ArrayList<>();
+        jdbcTemplate.query(genreIds, rs -> {
+            Genre genre = resolve(rs.getInt("genre_id"));
+            if (genre != null) {
+                genresOfFilm.add(genre);
+            }
+        }, filmId);
+        return genresOfFilm;
+    }
+
+    @Override
+    public Map<Integer, LinkedHashSet<Genre>> findGenresForFilms(Collection<Integer> filmIds) {
+        Map<Integer, LinkedHashSet<Genre>> genresByFilm = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return genresByFilm;
+        }
 
-        return jdbcTemplate.query(genres, genreRowMapper, filmId);
+        String genreIds = "SELECT film_id, genre_id " +
+                "FROM films_genres " +
+                "WHERE film_id = ANY(?) " +
+                "ORDER BY film_id, genre_id";
+
+        jdbcTemplate.query(genreIds,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray())),
+                rs -> {
+                    LinkedHashSet<Genre> genres = genresByFilm.computeIfAbsent(rs.getInt("film_id"),
+                            id -> new LinkedHashSet<>());
+                    Genre genre = resolve(rs.getInt("genre_id"));
+                    if (genre != null) {
+                        genres.add(genre);
+                    }
+                });
+        return genresByFilm;
     }
 
-    private void checkGenres(List<Genre> genres) {
-        List<Integer> genreIds = genres.stream()
-                .map(Genre::getId)
-                .toList();
+    @Override
+    public void forEachFilmGenre(IntPairConsumer filmAndGenre) {
+        jdbcTemplate.query("SELECT film_id, genre_id FROM films_genres", rs -> {
+            filmAndGenre.accept(rs.getInt("film_id"), rs.getInt("genre_id"));
+        });
+    }
 
-        if (genreIds.isEmpty()) {
-            return;
+    private IdIndexedSnapshot<Genre> snapshot() {
+        IdIndexedSnapshot<Genre> snapshot = genres;
+        if (snapshot == null) {
+            refresh();
+            snapshot = genres;
         }
+        return snapshot;
+    }
 
-        String placeholders = String.join(",", Collections.nCopies(genreIds.size(), "?"));
-
-        String sql = "SELECT COUNT(*) FROM genres WHERE genre_id IN (" + placeholders + ");";
+    /**
+     * Returns null for a genre deleted after its film row was read; the caller skips it, as the
+     * cascading delete will drop the link anyway.
+     */
+    private Genre resolve(int genreId) {
+        Genre genre = snapshot().get(genreId);
+        if (genre == null) {
+            refresh();
+            genre = genres.get(genreId);
+        }
+        if (genre == null) {
+            log.warn("Skipping genre {} of a film, it is not in the genres table", genreId);
+        }
+        return genre;
+    }
 
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, genreIds.toArray());
+    private void checkGenres(List<Genre> genres) {
+        IdIndexedSnapshot<Genre> snapshot = snapshot();
+        boolean allFound = genres.stream()
+                .allMatch(genre -> snapshot.contains(genre.getId()));
 
-        if (count == null || count < genreIds.size()) {
+        if (!allFound) {
             throw new ValidationException("Some genres are not found in the database");
         }
     }
@@ -1,7 +1,7 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dal.RatingStorage;
@@ -18,33 +18,43 @@ public class DbRatingStorage implements RatingStorage {
 
     private final RatingRowMapper ratingRowMapper;
 
+    private volatile IdIndexedSnapshot<MpaRating> ratings;
+
     @Autowired
     public DbRatingStorage(JdbcTemplate jdbcTemplate, RatingRowMapper ratingRowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.ratingRowMapper = ratingRowMapper;
     }
 
+    @PostConstruct
+    @Override
+    public void refresh() {
+        String sql = "SELECT * FROM ratings ORDER BY rating_id";
+        List<MpaRating> rows = jdbcTemplate.query(sql, ratingRowMapper);
+        ratings = IdIndexedSnapshot.of(rows, MpaRating::getId);
+    }
+
     @Override
     public List<MpaRating> findAllMpaRatings() {
-        String sql = "SELECT * FROM ratings";
-        return jdbcTemplate.query(sql, ratingRowMapper);
+        return snapshot().all();
     }
 
     @Override
     public boolean containsRating(Integer ratingId) {
-        String sql = "SELECT COUNT(*) FROM ratings WHERE rating_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, ratingId);
-        return count != null && count > 0;
+        return ratingId != null && snapshot().contains(ratingId);
     }
 
     @Override
     public Optional<MpaRating> findMpaRatingById(int id) {
-        String sqlQuery = "SELECT * FROM ratings WHERE rating_id = ?";
-        try {
-            MpaRating rating = jdbcTemplate.queryForObject(sqlQuery, ratingRowMapper, id);
-            return Optional.ofNullable(rating);
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+        return snapshot().find(id);
+    }
+
+    private IdIndexedSnapshot<MpaRating> snapshot() {
+        IdIndexedSnapshot<MpaRating> snapshot = ratings;
+        if (snapshot == null) {
+            refresh();
+            snapshot = ratings;
         }
+        return snapshot;
     }
 }
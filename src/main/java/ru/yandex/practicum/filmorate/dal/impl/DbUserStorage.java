@@ -1,37 +1,92 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.dal.IdIndexMismatches;
 import ru.yandex.practicum.filmorate.dal.UserStorage;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utils.AdjacencyIndex;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.USER_NOT_FOUND;
 
+@Slf4j
 @Repository
 @Qualifier("dbUserStorage")
 public class DbUserStorage implements UserStorage {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final int FRIENDSHIP_LOCK_STRIPES = 64;
+
     private final JdbcTemplate jdbcTemplate;
 
     private final UserRowMapper userRowMapper;
 
+    private final IdBitmap userIds = new IdBitmap();
+
+    private final AdjacencyIndex friends = new AdjacencyIndex();
+
+    /**
+     * Logins and names for autocomplete, both weighted by the user's friend count.
+     */
+    private final PrefixIndex logins = new PrefixIndex();
+
+    private final PrefixIndex names = new PrefixIndex();
+
+    /**
+     * Striped by user id; held across a friendship write and the matching index update.
+     */
+    private final ReentrantLock[] friendshipLocks = new ReentrantLock[FRIENDSHIP_LOCK_STRIPES];
+
     @Autowired
     public DbUserStorage(JdbcTemplate jdbcTemplate, UserRowMapper userRowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.userRowMapper = userRowMapper;
+        for (int i = 0; i < friendshipLocks.length; i++) {
+            friendshipLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void loadIndexes() {
+        loadUserIds();
+        loadFriendships();
+        loadUserNames();
+    }
+
+    @Override
+    public IdIndexMismatches getIdIndexMismatches() {
+        return userIds.mismatches();
     }
 
     @Override
@@ -39,6 +94,24 @@ public class DbUserStorage implements UserStorage {
         return jdbcTemplate.query("SELECT * from USERS", userRowMapper);
     }
 
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
+    }
+
+    @Override
+    public void streamAll(RowCallbackHandler handler) {
+        String sql = "SELECT user_id, name, login, email, birthday FROM users ORDER BY user_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, handler);
+    }
+
     @Override
     public User add(User user) {
         String sql = "INSERT INTO users (name, login, email, birthday) VALUES (?, ?, ?, ?)";
@@ -55,10 +128,46 @@ public class DbUserStorage implements UserStorage {
 
         Integer generatedId = Objects.requireNonNull(keyHolder.getKey()).intValue();
         user.setId(generatedId);
+        userIds.add(generatedId);
+        indexNames(user);
 
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> addAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        String sql = "INSERT INTO users (name, login, email, birthday) VALUES (?, ?, ?, ?)";
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getName());
+                        ps.setString(2, user.getLogin());
+                        ps.setString(3, user.getEmail());
+                        ps.setDate(4, Date.valueOf(user.getBirthday()));
+                    }
+
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            int generatedId = ((Number) keys.get(i).values().iterator().next()).intValue();
+            users.get(i).setId(generatedId);
+            userIds.add(generatedId);
+            indexNames(users.get(i));
+        }
+        return users;
+    }
+
     @Override
     public User update(User user) {
         String sql = "UPDATE users SET " +
@@ -73,27 +182,55 @@ public class DbUserStorage implements UserStorage {
                 user.getId());
 
         if (rowsAffected == 0) {
+            if (contains(user.getId())) {
+                recordStale(user.getId());
+            }
             throw new NotFoundException(USER_NOT_FOUND + user.getId());
         }
+        if (!userIds.contains(user.getId())) {
+            recordMissing(user.getId());
+        }
+        indexNames(user);
         return user;
     }
 
     @Override
     public boolean contains(Integer id) {
-        String sql = "SELECT COUNT(*) FROM users WHERE user_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        return count != null && count > 0;
+        return id != null && userIds.contains(id);
     }
 
     @Override
     public Optional<User> findById(int id) {
+        if (!userIds.contains(id)) {
+            return Optional.empty();
+        }
+
         String sql = "SELECT * FROM users WHERE user_id = ?";
-        try {
-            User user = jdbcTemplate.queryForObject(sql, userRowMapper, id);
-            return Optional.ofNullable(user);
-        } catch (Exception e) {
+        List<User> users = jdbcTemplate.query(sql, userRowMapper, id);
+        if (users.isEmpty()) {
+            recordStale(id);
             return Optional.empty();
         }
+        return Optional.of(users.getFirst());
+    }
+
+    @Override
+    public List<User> findByIds(int[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM users WHERE user_id = ANY(?) ORDER BY user_id";
+        Object[] boxedIds = Arrays.stream(ids).boxed().toArray();
+        List<User> users = jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", boxedIds)),
+                userRowMapper);
+        for (User user : users) {
+            if (!userIds.contains(user.getId())) {
+                recordMissing(user.getId());
+                indexNames(user);
+            }
+        }
+        return users;
     }
 
     public List<User> getFriendsbyUserId(int userId) {
@@ -101,40 +238,162 @@ public class DbUserStorage implements UserStorage {
             throw new NotFoundException("Can't find friends of non-existing user");
         }
 
-        String friends = "SELECT * FROM users " +
-                "WHERE user_id IN (SELECT friend_id from FRIENDSHIP where user_id = ?);";
+        return findByIds(friends.get(userId));
+    }
+
+    @Override
+    public int[] getFriendIds(int userId) {
+        return friends.get(userId);
+    }
 
-        return jdbcTemplate.query(friends, userRowMapper, userId);
+    @Override
+    public boolean isFriend(int userId, int friendId) {
+        return friends.contains(userId, friendId);
     }
 
     @Override
     public List<User> getCommonFriends(int userId, int friendId) {
-        String sql = "SELECT u.* " +
-                "FROM users AS u " +
-                "JOIN friendship AS fs1 ON u.user_id = fs1.friend_id " +
-                "JOIN friendship AS fs2 ON u.user_id = fs2.friend_id " +
-                "WHERE fs1.user_id = ? AND fs2.user_id = ?;";
+        return findByIds(AdjacencyIndex.intersect(friends.get(userId), friends.get(friendId)));
+    }
 
-        return jdbcTemplate.query(sql, userRowMapper, userId, friendId);
+    /**
+     * Users whose login or name starts with the prefix, most friends first.
+     */
+    @Override
+    public List<PrefixIndex.Completion> autocomplete(String prefix, int limit) {
+        List<PrefixIndex.Completion> completions = new ArrayList<>(logins.complete(prefix, limit));
+        completions.addAll(names.complete(prefix, limit));
+        completions.sort(Comparator.comparingInt(PrefixIndex.Completion::weight).reversed());
+
+        Set<Integer> seen = new HashSet<>();
+        return completions.stream()
+                .filter(completion -> seen.add(completion.id()))
+                .limit(limit)
+                .toList();
     }
 
     @Override
     public void addFriendship(Integer userId, Integer friendId) {
         String sql = "INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)";
 
-        jdbcTemplate.update(sql, userId, friendId);
+        ReentrantLock lock = friendshipLock(userId);
+        lock.lock();
+        try {
+            jdbcTemplate.update(sql, userId, friendId);
+            if (friends.add(userId, friendId)) {
+                updateFriendCount(userId);
+                undoOnRollback(userId, () -> friends.remove(userId, friendId));
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void removeFriendship(Integer userId, Integer friendId) {
         String sql = "DELETE FROM friendship WHERE user_id = ? AND friend_id = ?";
 
-        jdbcTemplate.update(sql, userId, friendId);
+        ReentrantLock lock = friendshipLock(userId);
+        lock.lock();
+        try {
+            if (jdbcTemplate.update(sql, userId, friendId) > 0 && friends.remove(userId, friendId)) {
+                updateFriendCount(userId);
+                undoOnRollback(userId, () -> friends.add(userId, friendId));
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void removeAll() {
         String sql = "DELETE FROM users";
         jdbcTemplate.update(sql);
+        userIds.clear();
+        friends.clear();
+        logins.clear();
+        names.clear();
+    }
+
+    private void loadUserIds() {
+        userIds.clear();
+        jdbcTemplate.query("SELECT user_id FROM users", rs -> {
+            userIds.add(rs.getInt("user_id"));
+        });
+    }
+
+    private void loadFriendships() {
+        AdjacencyIndex.Loader loader = friends.reload();
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendship ORDER BY user_id, friend_id", rs -> {
+            loader.append(rs.getInt("user_id"), rs.getInt("friend_id"));
+        });
+        loader.finish();
+    }
+
+    private void loadUserNames() {
+        List<PrefixIndex.Completion> userLogins = new ArrayList<>();
+        List<PrefixIndex.Completion> userNames = new ArrayList<>();
+        jdbcTemplate.query("SELECT user_id, login, name FROM users", rs -> {
+            int userId = rs.getInt("user_id");
+            int friendCount = friends.get(userId).length;
+            userLogins.add(new PrefixIndex.Completion(userId, rs.getString("login"), friendCount));
+            userNames.add(new PrefixIndex.Completion(userId, rs.getString("name"), friendCount));
+        });
+        logins.rebuild(userLogins);
+        names.rebuild(userNames);
+    }
+
+    private void indexNames(User user) {
+        logins.put(user.getId(), user.getLogin());
+        names.put(user.getId(), user.getName());
+    }
+
+    private void updateFriendCount(int userId) {
+        int friendCount = friends.get(userId).length;
+        logins.setWeight(userId, friendCount);
+        names.setWeight(userId, friendCount);
+    }
+
+    private ReentrantLock friendshipLock(int userId) {
+        return friendshipLocks[Math.floorMod(userId, friendshipLocks.length)];
+    }
+
+    /**
+     * Reverts a friendship index change if the surrounding transaction rolls back.
+     */
+    private void undoOnRollback(int userId, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                ReentrantLock lock = friendshipLock(userId);
+                lock.lock();
+                try {
+                    undo.run();
+                    updateFriendCount(userId);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    private void recordStale(int userId) {
+        userIds.remove(userId);
+        logins.remove(userId);
+        names.remove(userId);
+        log.warn("User id index disagreed with the database for user {}, {} mismatches so far",
+                userId, userIds.recordStale());
+    }
+
+    private void recordMissing(int userId) {
+        userIds.add(userId);
+        log.warn("User id index was missing user {} found in the database, {} missing ids so far",
+                userId, userIds.recordMissing());
     }
 }
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.dal.impl;
+
+import ru.yandex.practicum.filmorate.dal.IdIndexMismatches;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Growable bitset of existing primary keys. Lookups are lock-free, writers are serialized.
+ */
+final class IdBitmap {
+
+    private static final int INITIAL_WORDS = 1024;
+
+    private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+
+    private final LongAdder staleIds = new LongAdder();
+
+    private final LongAdder missingIds = new LongAdder();
+
+    boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        int wordIndex = id >>> 6;
+        return wordIndex < current.length() && (current.get(wordIndex) & (1L << id)) != 0;
+    }
+
+    synchronized void add(int id) {
+        if (id < 0) {
+            return;
+        }
+        int wordIndex = id >>> 6;
+        AtomicLongArray current = ensureCapacity(wordIndex);
+        current.set(wordIndex, current.get(wordIndex) | (1L << id));
+    }
+
+    synchronized void remove(int id) {
+        AtomicLongArray current = words;
+        int wordIndex = id >>> 6;
+        if (id >= 0 && wordIndex < current.length()) {
+            current.set(wordIndex, current.get(wordIndex) & ~(1L << id));
+        }
+    }
+
+    synchronized void clear() {
+        words = new AtomicLongArray(INITIAL_WORDS);
+    }
+
+    long recordStale() {
+        staleIds.increment();
+        return staleIds.sum();
+    }
+
+    long recordMissing() {
+        missingIds.increment();
+        return missingIds.sum();
+    }
+
+    IdIndexMismatches mismatches() {
+        return new IdIndexMismatches(staleIds.sum(), missingIds.sum());
+    }
+
+    private AtomicLongArray ensureCapacity(int wordIndex) {
+        AtomicLongArray current = words;
+        if (wordIndex < current.length()) {
+            return current;
+        }
+        int length = current.length();
+        while (length <= wordIndex) {
+            length *= 2;
+        }
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+        return grown;
+    }
+}
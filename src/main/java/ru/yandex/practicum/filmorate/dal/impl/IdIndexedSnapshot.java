@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.dal.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable copy of a small reference table, indexed by its integer primary key.
+ */
+final class IdIndexedSnapshot<T> {
+
+    private final Object[] byId;
+
+    private final List<T> all;
+
+    private IdIndexedSnapshot(Object[] byId, List<T> all) {
+        this.byId = byId;
+        this.all = all;
+    }
+
+    static <T> IdIndexedSnapshot<T> of(List<T> rows, ToIntFunction<T> idGetter) {
+        int maxId = rows.stream().mapToInt(idGetter).max().orElse(0);
+        Object[] byId = new Object[maxId + 1];
+        rows.forEach(row -> byId[idGetter.applyAsInt(row)] = row);
+        return new IdIndexedSnapshot<>(byId, List.copyOf(rows));
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int id) {
+        return id >= 0 && id < byId.length ? (T) byId[id] : null;
+    }
+
+    Optional<T> find(int id) {
+        return Optional.ofNullable(get(id));
+    }
+
+    boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    List<T> all() {
+        return all;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes film rows ordered by film id (one row per genre) as newline-delimited JSON in the FilmDto shape.
+ */
+public class FilmJsonRowWriter implements RowCallbackHandler {
+
+    private final JsonGenerator generator;
+
+    private int currentFilmId;
+
+    private boolean filmOpen;
+
+    public FilmJsonRowWriter(JsonGenerator generator) {
+        this.generator = generator;
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void processRow(ResultSet resultSet) throws SQLException {
+        try {
+            int filmId = resultSet.getInt("film_id");
+            if (!filmOpen || filmId != currentFilmId) {
+                endFilm();
+                startFilm(resultSet, filmId);
+            }
+
+            int genreId = resultSet.getInt("genre_id");
+            if (!resultSet.wasNull()) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", genreId);
+                generator.writeStringField("name", resultSet.getString("genre_name"));
+                generator.writeEndObject();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        endFilm();
+        generator.flush();
+    }
+
+    private void startFilm(ResultSet resultSet, int filmId) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", filmId);
+        generator.writeStringField("name", resultSet.getString("film_name"));
+        generator.writeStringField("description", resultSet.getString("description"));
+        generator.writeObjectFieldStart("mpa");
+        generator.writeNumberField("id", resultSet.getInt("rating_id"));
+        generator.writeStringField("name", resultSet.getString("rating_name"));
+        generator.writeEndObject();
+        generator.writeStringField("releaseDate", resultSet.getString("release_date"));
+        generator.writeNumberField("duration", resultSet.getLong("duration"));
+        generator.writeArrayFieldStart("genres");
+        currentFilmId = filmId;
+        filmOpen = true;
+    }
+
+    private void endFilm() throws IOException {
+        if (!filmOpen) {
+            return;
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        filmOpen = false;
+    }
+}
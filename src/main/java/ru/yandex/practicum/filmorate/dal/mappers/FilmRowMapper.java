@@ -7,23 +7,38 @@ import ru.yandex.practicum.filmorate.model.MpaRating;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 
+/**
+ * Maps rows of the storage's film select by column position: film_id, film_name, description,
+ * release_date, duration, rating_id, rating_name.
+ */
 @Component
 public class FilmRowMapper implements RowMapper<Film> {
+
+    private static final int FILM_ID = 1;
+
+    private static final int FILM_NAME = 2;
+
+    private static final int DESCRIPTION = 3;
+
+    private static final int RELEASE_DATE = 4;
+
+    private static final int DURATION = 5;
+
+    private static final int RATING_ID = 6;
+
+    private static final int RATING_NAME = 7;
+
     @Override
     public Film mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        MpaRating rating = MpaRating.builder()
-                .id(resultSet.getInt("rating_id"))
-                .name(resultSet.getString("rating_name"))
-                .build();
-
         return Film.builder()
-                .id(resultSet.getInt("film_id"))
-                .name(resultSet.getString("film_name"))
-                .description(resultSet.getString("description"))
-                .releaseDate(resultSet.getDate("release_date").toLocalDate())
-                .duration(resultSet.getLong("duration"))
-                .mpa(rating)
+                .id(resultSet.getInt(FILM_ID))
+                .name(resultSet.getString(FILM_NAME))
+                .description(resultSet.getString(DESCRIPTION))
+                .releaseDate(resultSet.getObject(RELEASE_DATE, LocalDate.class))
+                .duration(resultSet.getLong(DURATION))
+                .mpa(MpaRating.of(resultSet.getInt(RATING_ID), resultSet.getString(RATING_NAME)))
                 .build();
     }
 }
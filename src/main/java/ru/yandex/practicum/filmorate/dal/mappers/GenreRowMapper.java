@@ -11,9 +11,6 @@ import java.sql.SQLException;
 public class GenreRowMapper implements RowMapper<Genre> {
     @Override
     public Genre mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        return Genre.builder()
-                .id(resultSet.getInt("genre_id"))
-                .name(resultSet.getString("genre"))
-                .build();
+        return Genre.of(resultSet.getInt("genre_id"), resultSet.getString("genre"));
     }
 }
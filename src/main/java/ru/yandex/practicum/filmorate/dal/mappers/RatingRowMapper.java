@@ -12,9 +12,6 @@ public class RatingRowMapper implements RowMapper<MpaRating> {
 
     @Override
     public MpaRating mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        return MpaRating.builder()
-                .id(resultSet.getInt("rating_id"))
-                .name(resultSet.getString("rating_name"))
-                .build();
+        return MpaRating.of(resultSet.getInt("rating_id"), resultSet.getString("rating_name"));
     }
 }
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes user rows as newline-delimited JSON in the UserDto shape.
+ */
+public class UserJsonRowWriter implements RowCallbackHandler {
+
+    private final JsonGenerator generator;
+
+    public UserJsonRowWriter(JsonGenerator generator) {
+        this.generator = generator;
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void processRow(ResultSet resultSet) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", resultSet.getInt("user_id"));
+            generator.writeStringField("name", resultSet.getString("name"));
+            generator.writeStringField("login", resultSet.getString("login"));
+            generator.writeStringField("email", resultSet.getString("email"));
+            generator.writeStringField("birthday", resultSet.getString("birthday"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
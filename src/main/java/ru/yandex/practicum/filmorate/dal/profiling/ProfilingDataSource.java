@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.dal.profiling;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Data source whose connections time every executed statement and report it to {@link SqlStats}.
+ * Updates report their update counts; queries report the rows read when the result set is closed.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private static final String UNKNOWN_SQL = "<unknown>";
+
+    private final SqlStats stats;
+
+    public ProfilingDataSource(DataSource target, SqlStats stats) {
+        super(target);
+        this.stats = stats;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> proxy(PreparedStatement.class, result,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class, result,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(Statement.class, result,
+                        new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private String sql;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("addBatch") && args != null && args.length == 1) {
+                    sql = (String) args[0];
+                }
+                return ProfilingDataSource.invoke(statement, method, args);
+            }
+
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text
+                    : sql != null ? sql : UNKNOWN_SQL;
+            long start = System.nanoTime();
+            Object result = ProfilingDataSource.invoke(statement, method, args);
+            long nanos = System.nanoTime() - start;
+            switch (result) {
+                case ResultSet resultSet -> {
+                    return proxy(ResultSet.class, resultSet, new ResultSetHandler(resultSet, executed, nanos));
+                }
+                case int[] counts -> stats.record(executed, nanos, sum(counts));
+                case long[] counts -> stats.record(executed, nanos, sum(counts));
+                case Number count -> stats.record(executed, nanos, count.longValue());
+                case null, default -> stats.record(executed, nanos, -1);
+            }
+            return result;
+        }
+
+        private static long sum(int[] counts) {
+            long sum = 0;
+            for (int count : counts) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+
+        private static long sum(long[] counts) {
+            long sum = 0;
+            for (long count : counts) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+
+        private final String sql;
+
+        private final long nanos;
+
+        private long rows;
+
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet resultSet, String sql, long nanos) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(resultSet, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if ((Boolean) result) {
+                        rows++;
+                    }
+                }
+                case "close" -> {
+                    if (!recorded) {
+                        recorded = true;
+                        stats.record(sql, nanos, rows);
+                    }
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.dal.profiling;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts every {@link DataSource} bean behind a {@link ProfilingDataSource}.
+ */
+@Component
+public class SqlProfilingPostProcessor implements BeanPostProcessor {
+
+    private final boolean enabled;
+
+    private final ObjectProvider<SqlStats> stats;
+
+    public SqlProfilingPostProcessor(@Value("${filmorate.sql.profiling.enabled:true}") boolean enabled,
+                                     ObjectProvider<SqlStats> stats) {
+        this.enabled = enabled;
+        this.stats = stats;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+            return new ProfilingDataSource(dataSource, stats.getObject());
+        }
+        return bean;
+    }
+}
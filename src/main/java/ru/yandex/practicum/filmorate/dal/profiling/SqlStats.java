@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.dal.profiling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement execution statistics, keyed by normalized SQL. Recording a statement only touches
+ * striped counters; statements slower than the threshold are handed to a background thread to be
+ * logged, and dropped when that thread cannot keep up.
+ */
+@Slf4j
+@Component
+public class SqlStats {
+
+    private static final int MAX_CACHED_SQL = 10_000;
+
+    private static final int SLOW_LOG_CAPACITY = 1024;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long slowThresholdNanos;
+
+    private final ConcurrentMap<String, Statistics> byRawSql = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Statistics> byNormalizedSql = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<SlowStatement> slowStatements = new ArrayBlockingQueue<>(SLOW_LOG_CAPACITY);
+
+    private final LongAdder droppedSlowStatements = new LongAdder();
+
+    private Thread slowLogWriter;
+
+    @Autowired
+    public SqlStats(@Value("${filmorate.sql.slow-threshold-ms:100}") long slowThresholdMs) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        slowLogWriter = Thread.ofPlatform().name("sql-slow-log").daemon().start(this::writeSlowLog);
+    }
+
+    @PreDestroy
+    public void stop() {
+        slowLogWriter.interrupt();
+    }
+
+    /**
+     * Records one execution; {@code rows} is the number of rows read or updated, or -1 if unknown.
+     */
+    public void record(String sql, long nanos, long rows) {
+        Statistics statistics = byRawSql.get(sql);
+        if (statistics == null) {
+            statistics = byNormalizedSql.computeIfAbsent(normalize(sql), Statistics::new);
+            if (byRawSql.size() < MAX_CACHED_SQL) {
+                byRawSql.putIfAbsent(sql, statistics);
+            }
+        }
+        statistics.count.increment();
+        statistics.totalNanos.add(nanos);
+        statistics.maxNanos.accumulate(nanos);
+        if (rows > 0) {
+            statistics.rows.add(rows);
+        }
+
+        if (nanos >= slowThresholdNanos
+                && !slowStatements.offer(new SlowStatement(statistics.sql, nanos, rows))) {
+            droppedSlowStatements.increment();
+        }
+    }
+
+    /**
+     * Statement statistics, most total time first.
+     */
+    public List<StatementSnapshot> snapshot() {
+        List<StatementSnapshot> snapshots = new ArrayList<>(byNormalizedSql.size());
+        for (Statistics statistics : byNormalizedSql.values()) {
+            long count = statistics.count.sum();
+            long totalNanos = statistics.totalNanos.sum();
+            snapshots.add(new StatementSnapshot(statistics.sql, count, totalNanos / 1e6,
+                    count == 0 ? 0 : totalNanos / 1e6 / count, statistics.maxNanos.get() / 1e6,
+                    statistics.rows.sum()));
+        }
+        snapshots.sort(Comparator.comparingDouble(StatementSnapshot::totalMs).reversed());
+        return snapshots;
+    }
+
+    public long getDroppedSlowStatements() {
+        return droppedSlowStatements.sum();
+    }
+
+    public void reset() {
+        byRawSql.clear();
+        byNormalizedSql.clear();
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private void writeSlowLog() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                SlowStatement statement = slowStatements.take();
+                log.warn("Slow SQL ({} ms, {} rows): {}", String.format("%.1f", statement.nanos() / 1e6),
+                        statement.rows(), statement.sql());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record StatementSnapshot(String sql, long count, double totalMs, double meanMs, double maxMs, long rows) {
+    }
+
+    private record SlowStatement(String sql, long nanos, long rows) {
+    }
+
+    private static final class Statistics {
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder rows = new LongAdder();
+
+        private Statistics(String sql) {
+            this.sql = sql;
+        }
+    }
+}
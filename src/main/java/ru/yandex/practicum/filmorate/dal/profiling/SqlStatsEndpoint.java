@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.dal.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/sqlstats} lists statement statistics, most total time first;
+ * {@code DELETE} starts them over.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatsEndpoint {
+
+    private final SqlStats stats;
+
+    @ReadOperation
+    public Map<String, Object> statements() {
+        List<SqlStats.StatementSnapshot> statements = stats.snapshot();
+        return Map.of("droppedSlowStatements", stats.getDroppedSlowStatements(), "statements", statements);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        stats.reset();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchItemResultDto<T> {
+
+    public static final String CREATED = "CREATED";
+
+    public static final String FAILED = "FAILED";
+
+    private int index;
+
+    private String status;
+
+    private T item;
+
+    private String error;
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,29 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
+import ru.yandex.practicum.filmorate.utils.IdInterner;
 
-@Data
+import java.util.Objects;
+
+@Value
 @Builder
 public class MpaRating {
 
+    private static final IdInterner<MpaRating> CANONICAL = new IdInterner<>();
+
     private int id;
 
     private String name;
+
+    /**
+     * Returns the shared instance for this row, replacing it if the name has changed.
+     */
+    public static MpaRating of(int id, String name) {
+        MpaRating canonical = CANONICAL.get(id);
+        if (canonical != null && Objects.equals(canonical.name, name)) {
+            return canonical;
+        }
+        return CANONICAL.put(id, new MpaRating(id, name));
+    }
 }
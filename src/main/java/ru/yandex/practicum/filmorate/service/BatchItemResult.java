@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BatchItemResult<T> {
+
+    boolean created;
+
+    T item;
+
+    String error;
+
+    public static <T> BatchItemResult<T> created(T item) {
+        return new BatchItemResult<>(true, item, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(String error) {
+        return new BatchItemResult<>(false, null, error);
+    }
+
+    /**
+     * Fails the item with the exception's message, or its type when it has none.
+     */
+    public static <T> BatchItemResult<T> failed(RuntimeException e) {
+        return failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the representations clients poll, bumped by {@link FilmService} after each write
+ * that changes them. A version carries a ready-made strong ETag, so a conditional GET costs one
+ * map lookup and a string comparison. ETags start with the process start time, so tags handed
+ * out before a restart never match. There is no Last-Modified: its one-second resolution cannot
+ * tell apart writes made within the same second.
+ * <p>
+ * Writers bump after the change is stored and readers take the version before querying, so a
+ * response can only be tagged older than its content, never newer.
+ */
+@Component
+public class ContentVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentMap<Integer, Version> films = new ConcurrentHashMap<>();
+
+    private volatile Version allFilms = next();
+
+    private volatile Version genres = allFilms;
+
+    private volatile Version ratings = allFilms;
+
+    private volatile Version popular = allFilms;
+
+    public Version film(int filmId) {
+        Version film = films.get(filmId);
+        Version all = allFilms;
+        return film == null || film.sequence() < all.sequence() ? all : film;
+    }
+
+    public Version genres() {
+        return genres;
+    }
+
+    public Version ratings() {
+        return ratings;
+    }
+
+    public Version popular() {
+        return popular;
+    }
+
+    public void filmChanged(int filmId) {
+        Version version = next();
+        films.put(filmId, version);
+        popular = version;
+    }
+
+    public void filmAdded() {
+        popular = next();
+    }
+
+    public void likesChanged() {
+        popular = next();
+    }
+
+    public void referenceDataChanged() {
+        Version version = next();
+        allFilms = version;
+        genres = version;
+        ratings = version;
+        popular = version;
+    }
+
+    private Version next() {
+        long next = sequence.incrementAndGet();
+        return new Version("\"" + epoch + "-" + next + "\"", next);
+    }
+
+    public record Version(String etag, long sequence) {
+    }
+}
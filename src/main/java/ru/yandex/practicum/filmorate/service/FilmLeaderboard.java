@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Like counters per film kept in popularity order, so top-N is read without touching the database.
+ * Besides the overall ranking there is one per genre, per release year and per (genre, year), so
+ * filtered top-N is read the same way; a like moves the film in each ranking it belongs to.
+ */
+public class FilmLeaderboard {
+
+    private static final Comparator<Rank> RANKING = Comparator.comparingInt(Rank::likes).reversed()
+            .thenComparingInt(Rank::filmId);
+
+    private static final int ANY_GENRE = 0;
+
+    private static final int ANY_YEAR = Integer.MIN_VALUE;
+
+    private final Map<Integer, Integer> likesByFilm = new HashMap<>();
+
+    private final NavigableSet<Rank> ranking = new TreeSet<>(RANKING);
+
+    private final Map<Integer, Integer> yearByFilm = new HashMap<>();
+
+    private final Map<Integer, Set<Integer>> genresByFilm = new HashMap<>();
+
+    private final Map<Long, NavigableSet<Rank>> buckets = new HashMap<>();
+
+    public synchronized void rebuild(Map<Integer, Integer> likeCounts) {
+        rebuild(likeCounts, Map.of(), Map.of());
+    }
+
+    public synchronized void rebuild(Map<Integer, Integer> likeCounts,
+                                     Map<Integer, Integer> releaseYears,
+                                     Map<Integer, ? extends Collection<Integer>> genreIds) {
+        likesByFilm.clear();
+        ranking.clear();
+        yearByFilm.clear();
+        genresByFilm.clear();
+        buckets.clear();
+        likeCounts.forEach((filmId, likes) -> {
+            likesByFilm.put(filmId, likes);
+            ranking.add(new Rank(filmId, likes));
+        });
+        releaseYears.forEach((filmId, year) -> {
+            if (likesByFilm.containsKey(filmId)) {
+                yearByFilm.put(filmId, year);
+            }
+        });
+        genreIds.forEach((filmId, genres) -> {
+            if (likesByFilm.containsKey(filmId)) {
+                genresByFilm.put(filmId, new HashSet<>(genres));
+            }
+        });
+        likesByFilm.forEach((filmId, likes) -> addToBuckets(filmId, new Rank(filmId, likes)));
+    }
+
+    public synchronized void addFilm(int filmId) {
+        if (!likesByFilm.containsKey(filmId)) {
+            likesByFilm.put(filmId, 0);
+            ranking.add(new Rank(filmId, 0));
+        }
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Integer likes = likesByFilm.remove(filmId);
+        if (likes != null) {
+            ranking.remove(new Rank(filmId, likes));
+            removeFromBuckets(filmId, new Rank(filmId, likes));
+        }
+        yearByFilm.remove(filmId);
+        genresByFilm.remove(filmId);
+    }
+
+    /**
+     * Moves the film to the year rankings of its (new) release year.
+     */
+    public synchronized void setReleaseYear(int filmId, int year) {
+        Integer likes = likesByFilm.get(filmId);
+        if (likes == null || Objects.equals(yearByFilm.get(filmId), year)) {
+            return;
+        }
+        Rank rank = new Rank(filmId, likes);
+        Integer previous = yearByFilm.put(filmId, year);
+        Set<Integer> genres = genresByFilm.getOrDefault(filmId, Set.of());
+        if (previous != null) {
+            removeFromBucket(key(ANY_GENRE, previous), rank);
+            genres.forEach(genreId -> removeFromBucket(key(genreId, previous), rank));
+        }
+        addToBucket(key(ANY_GENRE, year), rank);
+        genres.forEach(genreId -> addToBucket(key(genreId, year), rank));
+    }
+
+    /**
+     * Adds the film to the genre rankings it is not in yet; genres of a film are only ever added.
+     */
+    public synchronized void addGenres(int filmId, Collection<Integer> genreIds) {
+        Integer likes = likesByFilm.get(filmId);
+        if (likes == null) {
+            return;
+        }
+        Rank rank = new Rank(filmId, likes);
+        Set<Integer> genres = genresByFilm.computeIfAbsent(filmId, id -> new HashSet<>());
+        Integer year = yearByFilm.get(filmId);
+        for (Integer genreId : genreIds) {
+            if (genres.add(genreId)) {
+                addToBucket(key(genreId, ANY_YEAR), rank);
+                if (year != null) {
+                    addToBucket(key(genreId, year), rank);
+                }
+            }
+        }
+    }
+
+    public synchronized void like(int filmId) {
+        shift(filmId, 1);
+    }
+
+    public synchronized void unlike(int filmId) {
+        shift(filmId, -1);
+    }
+
+    public synchronized void setLikes(int filmId, int likes) {
+        shift(filmId, likes - likesByFilm.getOrDefault(filmId, 0));
+    }
+
+    public synchronized int likes(int filmId) {
+        return likesByFilm.getOrDefault(filmId, 0);
+    }
+
+    public synchronized List<Integer> top(int size) {
+        return top(ranking, size);
+    }
+
+    /**
+     * Top films of a genre and/or release year; a {@code null} filter matches every film.
+     */
+    public synchronized List<Integer> top(int size, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return top(ranking, size);
+        }
+        NavigableSet<Rank> bucket = buckets.get(key(genreId != null ? genreId : ANY_GENRE,
+                year != null ? year : ANY_YEAR));
+        return bucket != null ? top(bucket, size) : List.of();
+    }
+
+    public synchronized List<Integer> findMismatches(Map<Integer, Integer> likeCounts) {
+        List<Integer> mismatches = new ArrayList<>();
+        likeCounts.forEach((filmId, likes) -> {
+            if (!Objects.equals(likesByFilm.get(filmId), likes)) {
+                mismatches.add(filmId);
+            }
+        });
+        likesByFilm.keySet().stream()
+                .filter(filmId -> !likeCounts.containsKey(filmId))
+                .forEach(mismatches::add);
+        return mismatches;
+    }
+
+    private static List<Integer> top(NavigableSet<Rank> ranks, int size) {
+        List<Integer> filmIds = new ArrayList<>(Math.min(size, ranks.size()));
+        Iterator<Rank> iterator = ranks.iterator();
+        while (filmIds.size() < size && iterator.hasNext()) {
+            filmIds.add(iterator.next().filmId());
+        }
+        return filmIds;
+    }
+
+    private void shift(int filmId, int delta) {
+        int likes = likesByFilm.getOrDefault(filmId, 0);
+        int updated = Math.max(0, likes + delta);
+        Rank previous = new Rank(filmId, likes);
+        Rank current = new Rank(filmId, updated);
+        ranking.remove(previous);
+        ranking.add(current);
+        likesByFilm.put(filmId, updated);
+        removeFromBuckets(filmId, previous);
+        addToBuckets(filmId, current);
+    }
+
+    private void addToBuckets(int filmId, Rank rank) {
+        Integer year = yearByFilm.get(filmId);
+        if (year != null) {
+            addToBucket(key(ANY_GENRE, year), rank);
+        }
+        for (Integer genreId : genresByFilm.getOrDefault(filmId, Set.of())) {
+            addToBucket(key(genreId, ANY_YEAR), rank);
+            if (year != null) {
+                addToBucket(key(genreId, year), rank);
+            }
+        }
+    }
+
+    private void removeFromBuckets(int filmId, Rank rank) {
+        Integer year = yearByFilm.get(filmId);
+        if (year != null) {
+            removeFromBucket(key(ANY_GENRE, year), rank);
+        }
+        for (Integer genreId : genresByFilm.getOrDefault(filmId, Set.of())) {
+            removeFromBucket(key(genreId, ANY_YEAR), rank);
+            if (year != null) {
+                removeFromBucket(key(genreId, year), rank);
+            }
+        }
+    }
+
+    private void addToBucket(long key, Rank rank) {
+        buckets.computeIfAbsent(key, k -> new TreeSet<>(RANKING)).add(rank);
+    }
+
+    private void removeFromBucket(long key, Rank rank) {
+        NavigableSet<Rank> bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(rank) && bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    private static long key(int genreId, int year) {
+        return (long) genreId << 32 | year & 0xFFFFFFFFL;
+    }
+
+    private record Rank(int filmId, int likes) {
+    }
+}
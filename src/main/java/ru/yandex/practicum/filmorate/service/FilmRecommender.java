@@ -0,0 +1,253 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.utils.AdjacencyIndex;
+import ru.yandex.practicum.filmorate.utils.IntIntCountMap;
+import ru.yandex.practicum.filmorate.utils.IntPairConsumer;
+import ru.yandex.practicum.filmorate.utils.TopIds;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Item-item collaborative filtering over film likes. Every film keeps at most
+ * {@code neighbourLimit} co-liked films with their co-like counts; a like or unlike only touches
+ * the rows of the films the user has already liked. A user's candidates are scored by the sum of
+ * cosine similarities to the films they liked.
+ */
+public class FilmRecommender {
+
+    public static final int DEFAULT_NEIGHBOURS = 50;
+
+    private static final int SCORE_SCALE = 10_000;
+
+    private final int neighbourLimit;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AdjacencyIndex likedFilms = new AdjacencyIndex();
+
+    private Neighbours[] films = new Neighbours[1024];
+
+    public FilmRecommender() {
+        this(DEFAULT_NEIGHBOURS);
+    }
+
+    public FilmRecommender(int neighbourLimit) {
+        this.neighbourLimit = neighbourLimit;
+    }
+
+    /**
+     * Rebuilds the model from likes streamed as (user, film), ordered by user and then film.
+     * Neighbours are counted exactly here and cut to the top {@code neighbourLimit} per film.
+     */
+    public void rebuild(Consumer<IntPairConsumer> likesByUser) {
+        lock.writeLock().lock();
+        try {
+            AdjacencyIndex.Loader loader = likedFilms.reload();
+            likesByUser.accept(loader::append);
+            loader.finish();
+
+            int[][] likers = transpose();
+            Neighbours[] rebuilt = new Neighbours[Math.max(1024, likers.length)];
+            IntStream.range(0, likers.length).parallel()
+                    .filter(film -> likers[film] != null)
+                    .forEach(film -> rebuilt[film] = countNeighbours(film, likers[film]));
+            films = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void like(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            int[] liked = likedFilms.get(userId);
+            if (Arrays.binarySearch(liked, filmId) >= 0) {
+                return;
+            }
+            Neighbours film = row(filmId);
+            film.likes++;
+            for (int other : liked) {
+                film.increment(other, neighbourLimit);
+                row(other).increment(filmId, neighbourLimit);
+            }
+            likedFilms.add(userId, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unlike(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            if (!likedFilms.remove(userId, filmId)) {
+                return;
+            }
+            Neighbours film = row(filmId);
+            film.likes--;
+            for (int other : likedFilms.get(userId)) {
+                film.decrement(other);
+                row(other).decrement(filmId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} film ids the user has not liked, best first.
+     */
+    public int[] recommend(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] liked = likedFilms.get(userId);
+            IntIntCountMap scores = new IntIntCountMap(liked.length * Math.min(neighbourLimit, 16));
+            for (int filmId : liked) {
+                Neighbours film = films[filmId];
+                for (int i = 0; film != null && i < film.size; i++) {
+                    int candidate = film.ids[i];
+                    Neighbours other = candidate < films.length ? films[candidate] : null;
+                    if (other == null || other.likes <= 0 || Arrays.binarySearch(liked, candidate) >= 0) {
+                        continue;
+                    }
+                    // Space-saving counts may overestimate, so the cosine is capped at 1
+                    double similarity = Math.min(1.0, film.counts[i] / Math.sqrt((double) film.likes * other.likes));
+                    scores.add(candidate, (int) Math.round(similarity * SCORE_SCALE));
+                }
+            }
+
+            TopIds top = new TopIds(limit);
+            scores.forEach(top::offer);
+            return top.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds film -> sorted likers from the user -> films rows in one counting pass.
+     */
+    private int[][] transpose() {
+        int users = likedFilms.nodeLimit();
+        int maxFilm = -1;
+        for (int user = 0; user < users; user++) {
+            int[] liked = likedFilms.get(user);
+            if (liked.length > 0) {
+                maxFilm = Math.max(maxFilm, liked[liked.length - 1]);
+            }
+        }
+        int[] degree = new int[maxFilm + 1];
+        for (int user = 0; user < users; user++) {
+            for (int film : likedFilms.get(user)) {
+                degree[film]++;
+            }
+        }
+        int[][] likers = new int[maxFilm + 1][];
+        for (int film = 0; film <= maxFilm; film++) {
+            if (degree[film] > 0) {
+                likers[film] = new int[degree[film]];
+                degree[film] = 0;
+            }
+        }
+        for (int user = 0; user < users; user++) {
+            for (int film : likedFilms.get(user)) {
+                likers[film][degree[film]++] = user;
+            }
+        }
+        return likers;
+    }
+
+    private Neighbours countNeighbours(int filmId, int[] likers) {
+        IntIntCountMap coLikes = new IntIntCountMap(64);
+        for (int user : likers) {
+            for (int other : likedFilms.get(user)) {
+                if (other != filmId) {
+                    coLikes.increment(other);
+                }
+            }
+        }
+        TopIds top = new TopIds(neighbourLimit);
+        coLikes.forEach(top::offer);
+        int[] ids = top.toArray();
+
+        Neighbours film = new Neighbours();
+        film.likes = likers.length;
+        film.ids = ids;
+        film.counts = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            film.counts[i] = coLikes.get(ids[i]);
+        }
+        film.size = ids.length;
+        return film;
+    }
+
+    private Neighbours row(int filmId) {
+        if (filmId >= films.length) {
+            films = Arrays.copyOf(films, Math.max(films.length * 2, filmId + 1));
+        }
+        Neighbours film = films[filmId];
+        if (film == null) {
+            film = new Neighbours();
+            films[filmId] = film;
+        }
+        return film;
+    }
+
+    /**
+     * Bounded co-like counters of one film. When all slots are taken, a new neighbour replaces the
+     * weakest one and inherits its count plus one (space-saving), so frequent neighbours survive.
+     */
+    private static final class Neighbours {
+
+        private int likes;
+
+        private int[] ids = new int[0];
+
+        private int[] counts = new int[0];
+
+        private int size;
+
+        void increment(int neighbour, int limit) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == neighbour) {
+                    counts[i]++;
+                    return;
+                }
+            }
+            if (size < limit) {
+                if (size == ids.length) {
+                    int capacity = Math.min(limit, Math.max(4, size * 2));
+                    ids = Arrays.copyOf(ids, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                }
+                ids[size] = neighbour;
+                counts[size++] = 1;
+                return;
+            }
+            int weakest = 0;
+            for (int i = 1; i < size; i++) {
+                if (counts[i] < counts[weakest]) {
+                    weakest = i;
+                }
+            }
+            ids[weakest] = neighbour;
+            counts[weakest]++;
+        }
+
+        void decrement(int neighbour) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == neighbour) {
+                    if (--counts[i] == 0) {
+                        size--;
+                        ids[i] = ids[size];
+                        counts[i] = counts[size];
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
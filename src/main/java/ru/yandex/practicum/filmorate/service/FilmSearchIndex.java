@@ -0,0 +1,283 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.utils.IntIntCountMap;
+import ru.yandex.practicum.filmorate.utils.TopIds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over film names and descriptions, ranked with BM25. Name terms count
+ * {@link #NAME_WEIGHT} times. Posting lists are film ids sorted ascending with their term
+ * frequencies in parallel int arrays; each film also keeps its term ids so an update or removal
+ * only touches the lists it is in.
+ * <p>
+ * A query reads its terms rarest first. Terms are scanned in full while the scanned postings
+ * stay under {@link #MAX_SCANNED_POSTINGS}; the commoner terms after that only score films that
+ * are already candidates, by binary search in their lists, so a rare term paired with a
+ * stop word costs about as much as the rare term alone. A single-term query ranks its list
+ * directly; a query made only of stop words still reads every film containing them.
+ */
+public class FilmSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int MAX_SCANNED_POSTINGS = 20_000;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int SCORE_SCALE = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+
+    private final List<Postings> postings = new ArrayList<>();
+
+    private int[][] filmTerms = new int[1024][];
+
+    private int[] filmLengths = new int[1024];
+
+    private int films;
+
+    private long totalLength;
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termIds.clear();
+            postings.clear();
+            filmTerms = new int[1024][];
+            filmLengths = new int[1024];
+            films = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the film, replacing what was indexed for it before.
+     */
+    public void put(int filmId, String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = count(name, NAME_WEIGHT, frequencies) + count(description, 1, frequencies);
+
+        lock.writeLock().lock();
+        try {
+            removeFilm(filmId);
+            ensureCapacity(filmId);
+            int[] terms = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                int termId = termIds.computeIfAbsent(entry.getKey(), term -> {
+                    postings.add(new Postings());
+                    return postings.size() - 1;
+                });
+                postings.get(termId).add(filmId, entry.getValue());
+                terms[i++] = termId;
+            }
+            filmTerms[filmId] = terms;
+            filmLengths[filmId] = length;
+            films++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} film ids matching any query term, best first.
+     */
+    public int[] search(String query, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, tokens::add);
+
+        lock.readLock().lock();
+        try {
+            List<Postings> terms = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Integer termId = termIds.get(token);
+                if (termId != null && postings.get(termId).size > 0) {
+                    terms.add(postings.get(termId));
+                }
+            }
+            if (terms.isEmpty() || limit <= 0) {
+                return new int[0];
+            }
+            terms.sort(Comparator.comparingInt(term -> term.size));
+
+            double averageLength = (double) totalLength / films;
+            TopIds top = new TopIds(limit);
+            if (terms.size() == 1) {
+                Postings term = terms.getFirst();
+                double idf = idf(term);
+                for (int i = 0; i < term.size; i++) {
+                    int filmId = term.films[i];
+                    top.offer(filmId, score(idf, term.frequencies[i], filmLengths[filmId], averageLength));
+                }
+                return top.toArray();
+            }
+
+            long postingCount = terms.stream().mapToLong(term -> term.size).sum();
+            IntIntCountMap scores = new IntIntCountMap((int) Math.max(terms.getFirst().size,
+                    Math.min(postingCount, MAX_SCANNED_POSTINGS)));
+            long scanned = 0;
+            for (Postings term : terms) {
+                double idf = idf(term);
+                if (scores.size() == 0 || scanned + term.size <= MAX_SCANNED_POSTINGS) {
+                    scanned += term.size;
+                    for (int i = 0; i < term.size; i++) {
+                        int filmId = term.films[i];
+                        scores.add(filmId, score(idf, term.frequencies[i], filmLengths[filmId], averageLength));
+                    }
+                } else {
+                    for (int filmId : candidates(scores)) {
+                        int frequency = term.frequency(filmId);
+                        if (frequency > 0) {
+                            scores.add(filmId, score(idf, frequency, filmLengths[filmId], averageLength));
+                        }
+                    }
+                }
+            }
+
+            scores.forEach(top::offer);
+            return top.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits, folding "ё" into "е". Single
+     * letters are dropped; single digits are kept.
+     */
+    private static void tokenize(String text, Consumer<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (!token.isEmpty()) {
+                if (token.length() > 1 || Character.isDigit(token.charAt(0))) {
+                    tokens.accept(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+    }
+
+    private static int count(String text, int weight, Map<String, Integer> frequencies) {
+        int[] length = new int[1];
+        tokenize(text, token -> {
+            frequencies.merge(token, weight, Integer::sum);
+            length[0] += weight;
+        });
+        return length[0];
+    }
+
+    private double idf(Postings term) {
+        return Math.log(1 + (films - term.size + 0.5) / (term.size + 0.5));
+    }
+
+    private static int score(double idf, int frequency, int length, double averageLength) {
+        double saturation = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+        return (int) Math.round(idf * saturation * SCORE_SCALE);
+    }
+
+    private static int[] candidates(IntIntCountMap scores) {
+        int[] ids = new int[scores.size()];
+        int[] next = new int[1];
+        scores.forEach((id, score) -> ids[next[0]++] = id);
+        return ids;
+    }
+
+    private void removeFilm(int filmId) {
+        if (filmId >= filmTerms.length || filmTerms[filmId] == null) {
+            return;
+        }
+        for (int termId : filmTerms[filmId]) {
+            postings.get(termId).remove(filmId);
+        }
+        films--;
+        totalLength -= filmLengths[filmId];
+        filmTerms[filmId] = null;
+        filmLengths[filmId] = 0;
+    }
+
+    private void ensureCapacity(int filmId) {
+        if (filmId >= filmTerms.length) {
+            int capacity = Math.max(filmTerms.length * 2, filmId + 1);
+            filmTerms = Arrays.copyOf(filmTerms, capacity);
+            filmLengths = Arrays.copyOf(filmLengths, capacity);
+        }
+    }
+
+    /**
+     * Films containing one term, sorted by id, with the weighted frequency of the term in each.
+     */
+    private static final class Postings {
+
+        private int[] films = new int[2];
+
+        private int[] frequencies = new int[2];
+
+        private int size;
+
+        void add(int filmId, int frequency) {
+            int index = size > 0 && films[size - 1] < filmId ? size : Arrays.binarySearch(films, 0, size, filmId);
+            if (index >= 0 && index < size) {
+                frequencies[index] = frequency;
+                return;
+            }
+            int insertAt = index >= 0 ? index : -index - 1;
+            if (size == films.length) {
+                films = Arrays.copyOf(films, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(films, insertAt, films, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            films[insertAt] = filmId;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        void remove(int filmId) {
+            int index = Arrays.binarySearch(films, 0, size, filmId);
+            if (index >= 0) {
+                System.arraycopy(films, index + 1, films, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+
+        int frequency(int filmId) {
+            int index = Arrays.binarySearch(films, 0, size, filmId);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.yandex.practicum.filmorate.dal.FilmStorage;
 import ru.yandex.practicum.filmorate.dal.GenreStorage;
 import ru.yandex.practicum.filmorate.dal.RatingStorage;
@@ -10,17 +20,30 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.FILM_NOT_FOUND;
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.GENRE_NOT_FOUND;
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.RATING_NOT_FOUND;
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.USER_NOT_FOUND;
 
+@Slf4j
 @Service
-public class FilmService {
+public class FilmService implements MeterBinder {
     private final FilmStorage filmStorage;
 
     private final UserStorage userStorage;
@@ -29,19 +52,142 @@ public class FilmService {
 
     private final GenreStorage genreStorage;
 
+    private final LikeWriteBehind likeWriteBehind;
+
+    private final ContentVersions versions;
+
+    private final int batchChunkSize;
+
+    private final TransactionOperations transactionTemplate;
+
+    private final FilmLeaderboard leaderboard = new FilmLeaderboard();
+
+    private final FilmRecommender recommender = new FilmRecommender();
+
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+
+    private Set<Integer> suspectedLeaderboardDrift = Set.of();
+
+    private Set<Integer> suspectedColumnDrift = Set.of();
+
+    private volatile int lastMismatches;
+
+    private final LongAdder repairedFilms = new LongAdder();
+
     @Autowired
     public FilmService(FilmStorage dbFilmStorage,
                        UserStorage dbUserStorage,
                        RatingStorage ratingStorage,
-                       GenreStorage genreStorage) {
+                       GenreStorage genreStorage,
+                       LikeWriteBehind likeWriteBehind,
+                       ContentVersions versions,
+                       @Value("${filmorate.batch.chunk-size:500}") int batchChunkSize,
+                       TransactionOperations transactionTemplate) {
         this.filmStorage = dbFilmStorage;
         this.userStorage = dbUserStorage;
         this.ratingStorage = ratingStorage;
         this.genreStorage = genreStorage;
+        this.likeWriteBehind = likeWriteBehind;
+        this.versions = versions;
+        this.batchChunkSize = batchChunkSize;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void loadLikes() {
+        rebuildLeaderboard();
+        rebuildRecommendations();
+        rebuildSearchIndex();
+    }
+
+    public void rebuildLeaderboard() {
+        Map<Integer, List<Integer>> genreIds = new HashMap<>();
+        genreStorage.forEachFilmGenre((filmId, genreId) ->
+                genreIds.computeIfAbsent(filmId, id -> new ArrayList<>(2)).add(genreId));
+        leaderboard.rebuild(filmStorage.getLikeCounts(), filmStorage.getReleaseYears(), genreIds);
+        versions.likesChanged();
+    }
+
+    public void rebuildRecommendations() {
+        recommender.rebuild(filmStorage::forEachLikeByUser);
+    }
+
+    public void rebuildSearchIndex() {
+        searchIndex.clear();
+        filmStorage.forEachFilmText(searchIndex::put);
+    }
+
+    /**
+     * Compares the leaderboard and films.like_count with film_likes and returns the films whose
+     * leaderboard count differs. A single disagreement can be a like in flight, so a film is only
+     * repaired from film_likes when it disagrees on two checks in a row.
+     */
+    @Scheduled(initialDelayString = "${filmorate.leaderboard.check-interval-ms:600000}",
+            fixedDelayString = "${filmorate.leaderboard.check-interval-ms:600000}")
+    public synchronized List<Integer> checkLeaderboardConsistency() {
+        if (likeWriteBehind.isEnabled()) {
+            likeWriteBehind.flush();
+        }
+        Map<Integer, Integer> filmLikes = new HashMap<>();
+        List<Integer> staleColumns = new ArrayList<>();
+        filmStorage.forEachLikeTally((filmId, likeCount, likes) -> {
+            filmLikes.put(filmId, likes);
+            if (likeCount != likes) {
+                staleColumns.add(filmId);
+            }
+        });
+        if (!staleColumns.isEmpty()) {
+            log.warn("films.like_count differs from film_likes for films {}", staleColumns);
+        }
+        List<Integer> mismatches = leaderboard.findMismatches(filmLikes);
+        if (!mismatches.isEmpty()) {
+            log.warn("Leaderboard like counts differ from film_likes for films {}", mismatches);
+        }
+        lastMismatches = mismatches.size();
+
+        List<Integer> driftedColumns = confirmed(staleColumns, suspectedColumnDrift);
+        if (!driftedColumns.isEmpty()) {
+            filmStorage.recountLikes(driftedColumns);
+        }
+        List<Integer> drifted = confirmed(mismatches, suspectedLeaderboardDrift);
+        for (Integer filmId : drifted) {
+            Integer likes = filmLikes.get(filmId);
+            if (likes != null) {
+                leaderboard.setLikes(filmId, likes);
+            } else {
+                leaderboard.removeFilm(filmId);
+            }
+        }
+        if (!drifted.isEmpty() || !driftedColumns.isEmpty()) {
+            log.warn("Repaired like counts from film_likes: leaderboard {}, like_count {}", drifted, driftedColumns);
+            repairedFilms.add(drifted.size());
+            versions.likesChanged();
+        }
+        suspectedColumnDrift = new HashSet<>(staleColumns);
+        suspectedLeaderboardDrift = new HashSet<>(mismatches);
+        return mismatches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.leaderboard.mismatches", this, service -> service.lastMismatches)
+                .description("Films whose leaderboard like count differed from film_likes at the last check")
+                .register(registry);
+        FunctionCounter.builder("filmorate.leaderboard.repairs", repairedFilms, LongAdder::sum)
+                .description("Leaderboard like counts repaired from film_likes")
+                .register(registry);
     }
 
     public List<Film> getFilms() {
-        return filmStorage.findAllFilms();
+        return withGenres(filmStorage.findAllFilms());
+    }
+
+    public List<Film> getFilms(int afterId, int limit) {
+        return withGenres(filmStorage.findFilmsPage(afterId, limit));
+    }
+
+    public void exportFilms(RowCallbackHandler handler) {
+        filmStorage.streamFilms(handler);
     }
 
     public List<Genre> getGenres() {
@@ -52,8 +198,21 @@ public class FilmService {
         return ratingStorage.findAllMpaRatings();
     }
 
+    public void refreshReferenceData() {
+        genreStorage.refresh();
+        ratingStorage.refresh();
+        versions.referenceDataChanged();
+    }
+
     public Film findFilmById(int id) {
-        return filmStorage.findFilmById(id).orElseThrow(() -> new NotFoundException(FILM_NOT_FOUND + id));
+        Film film = filmStorage.findFilmById(id).orElseThrow(() -> new NotFoundException(FILM_NOT_FOUND + id));
+        return withGenres(List.of(film)).getFirst();
+    }
+
+    public void checkFilmExists(int id) {
+        if (!filmStorage.containsFilm(id)) {
+            throw new NotFoundException(FILM_NOT_FOUND + id);
+        }
     }
 
     public Genre findGenreById(int id) {
@@ -64,21 +223,87 @@ public class FilmService {
         return ratingStorage.findMpaRatingById(id).orElseThrow(() -> new NotFoundException(GENRE_NOT_FOUND + id));
     }
 
-    public LinkedHashSet<Genre> findGenresForFilm(int id) {
-        return new LinkedHashSet<>(genreStorage.findGenresForFilm(id));
-    }
-
     public void addGenresForFilm(Film film) {
         genreStorage.addGenresOfFilm(film);
+        leaderboard.addGenres(film.getId(), genreIds(film));
+        versions.filmChanged(film.getId());
     }
 
     public Film create(Film film) {
-        return filmStorage.add(film);
+        Film createdFilm = filmStorage.add(film);
+        leaderboard.addFilm(createdFilm.getId());
+        leaderboard.setReleaseYear(createdFilm.getId(), createdFilm.getReleaseDate().getYear());
+        searchIndex.put(createdFilm.getId(), createdFilm.getName(), createdFilm.getDescription());
+        versions.filmAdded();
+        return createdFilm;
+    }
+
+    /**
+     * Inserts the films in chunks, each chunk's films and genres in one transaction. A failed chunk
+     * is retried film by film, so every item gets its own result and no film is left saved
+     * without its genres.
+     */
+    public List<BatchItemResult<Film>> createAll(List<Film> films) {
+        List<BatchItemResult<Film>> results = new ArrayList<>(Collections.nCopies(films.size(), null));
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            String error = checkReferences(films.get(i));
+            if (error != null) {
+                results.set(i, BatchItemResult.failed(error));
+            } else {
+                valid.add(i);
+            }
+        }
+
+        List<Film> created = new ArrayList<>(valid.size());
+        for (int from = 0; from < valid.size(); from += batchChunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + batchChunkSize, valid.size()));
+            List<Film> chunkFilms = chunk.stream().map(films::get).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    filmStorage.addAll(chunkFilms);
+                    genreStorage.addGenresOfFilms(chunkFilms);
+                });
+                chunk.forEach(i -> results.set(i, BatchItemResult.created(films.get(i))));
+                created.addAll(chunkFilms);
+            } catch (RuntimeException e) {
+                log.debug("Batch insert of {} films failed, retrying one by one: {}", chunk.size(), e.getMessage());
+                chunkFilms.forEach(this::discardRolledBackId);
+                for (Integer i : chunk) {
+                    Film film = films.get(i);
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            filmStorage.add(film);
+                            genreStorage.addGenresOfFilm(film);
+                        });
+                        created.add(film);
+                        results.set(i, BatchItemResult.created(film));
+                    } catch (RuntimeException itemError) {
+                        discardRolledBackId(film);
+                        results.set(i, BatchItemResult.failed(itemError));
+                    }
+                }
+            }
+        }
+
+        for (Film film : created) {
+            leaderboard.addFilm(film.getId());
+            leaderboard.setReleaseYear(film.getId(), film.getReleaseDate().getYear());
+            leaderboard.addGenres(film.getId(), genreIds(film));
+            searchIndex.put(film.getId(), film.getName(), film.getDescription());
+        }
+        versions.filmAdded();
+        return results;
     }
 
     public Film updateFilm(Film newFilm) {
         genreStorage.addGenresOfFilm(newFilm);
-        return filmStorage.update(newFilm);
+        Film updatedFilm = filmStorage.update(newFilm);
+        leaderboard.setReleaseYear(updatedFilm.getId(), updatedFilm.getReleaseDate().getYear());
+        leaderboard.addGenres(updatedFilm.getId(), genreIds(updatedFilm));
+        searchIndex.put(updatedFilm.getId(), updatedFilm.getName(), updatedFilm.getDescription());
+        versions.filmChanged(updatedFilm.getId());
+        return updatedFilm;
     }
 
     public void addLike(Integer filmId, Integer userId) {
@@ -90,7 +315,19 @@ public class FilmService {
             throw new NotFoundException(FILM_NOT_FOUND + filmId);
         }
 
+        if (likeWriteBehind.isEnabled()) {
+            if (likeWriteBehind.like(filmId, userId)) {
+                leaderboard.like(filmId);
+                recommender.like(filmId, userId);
+                versions.likesChanged();
+            }
+            return;
+        }
+
         filmStorage.addLike(filmId, userId);
+        leaderboard.like(filmId);
+        recommender.like(filmId, userId);
+        versions.likesChanged();
     }
 
     public void removeLike(Integer filmId, Integer userId) {
@@ -102,10 +339,82 @@ public class FilmService {
             throw new NotFoundException(FILM_NOT_FOUND + filmId);
         }
 
-        filmStorage.removeLike(filmId, userId);
+        boolean removed = likeWriteBehind.isEnabled()
+                ? likeWriteBehind.unlike(filmId, userId)
+                : filmStorage.removeLike(filmId, userId);
+        if (removed) {
+            leaderboard.unlike(filmId);
+            recommender.unlike(filmId, userId);
+            versions.likesChanged();
+        }
+    }
+
+    public List<Film> getMostPopularFilms(int size, Integer genreId, Integer year) {
+        return findFilmsInOrder(leaderboard.top(size, genreId, year));
+    }
+
+    public List<Film> searchFilms(String query, int limit) {
+        return findFilmsInOrder(Arrays.stream(searchIndex.search(query, limit)).boxed().toList());
+    }
+
+    public List<PrefixIndex.Completion> autocompleteFilms(String prefix, int limit) {
+        return filmStorage.autocomplete(prefix, limit);
+    }
+
+    public List<Film> getRecommendations(int userId, int limit) {
+        if (!userStorage.contains(userId)) {
+            throw new NotFoundException(USER_NOT_FOUND + userId);
+        }
+
+        return findFilmsInOrder(Arrays.stream(recommender.recommend(userId, limit)).boxed().toList());
+    }
+
+    private String checkReferences(Film film) {
+        if (film.getMpa() == null || !ratingStorage.containsRating(film.getMpa().getId())) {
+            return RATING_NOT_FOUND + (film.getMpa() != null ? film.getMpa().getId() : null);
+        }
+        boolean genresFound = film.getGenres().stream()
+                .allMatch(genre -> genreStorage.containsGenre(genre.getId()));
+        if (!genresFound) {
+            return "Some genres are not found in the database";
+        }
+        return null;
+    }
+
+    private List<Film> findFilmsInOrder(List<Integer> filmIds) {
+        Map<Integer, Film> filmsById = filmStorage.findFilmsByIds(filmIds).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return withGenres(filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Drops the id a rolled back insert gave the film from the in-memory indexes. The row is already
+     * gone, and a DELETE here could hit a later insert that reused the id.
+     */
+    private void discardRolledBackId(Film film) {
+        if (film.getId() != 0) {
+            filmStorage.forgetFilm(film.getId());
+            searchIndex.remove(film.getId());
+            film.setId(0);
+        }
+    }
+
+    private static List<Integer> confirmed(List<Integer> filmIds, Set<Integer> suspected) {
+        return filmIds.stream().filter(suspected::contains).toList();
+    }
+
+    private static List<Integer> genreIds(Film film) {
+        return film.getGenres() == null ? List.of() : film.getGenres().stream().map(Genre::getId).toList();
     }
 
-    public List<Film> getMostPopularFilms(int size) {
-        return filmStorage.getMostPopularFilms(size);
+    private List<Film> withGenres(List<Film> films) {
+        Map<Integer, LinkedHashSet<Genre>> genresByFilm = genreStorage.findGenresForFilms(films.stream()
+                .map(Film::getId)
+                .toList());
+        films.forEach(film -> film.setGenres(genresByFilm.getOrDefault(film.getId(), new LinkedHashSet<>())));
+        return films;
     }
 }
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.utils.IntIntCountMap;
+import ru.yandex.practicum.filmorate.utils.TopIds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * Ranks friends of friends by the number of mutual friends, most first, then by id. Users
+ * whose friends have many friends of their own are counted in parallel on a fork/join pool.
+ */
+public class FriendSuggestions {
+
+    static final int PARALLEL_EDGES = 1 << 16;
+
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static final int MAX_PRESIZE = 1 << 20;
+
+    private final IntFunction<int[]> friendsOf;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param friendsOf sorted friend ids of a user; the arrays are only read
+     */
+    public FriendSuggestions(IntFunction<int[]> friendsOf) {
+        this(friendsOf, ForkJoinPool.commonPool());
+    }
+
+    public FriendSuggestions(IntFunction<int[]> friendsOf, ForkJoinPool pool) {
+        this.friendsOf = friendsOf;
+        this.pool = pool;
+    }
+
+    public int[] suggest(int userId, int limit) {
+        int[] friends = friendsOf.apply(userId);
+        if (friends.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        long edges = 0;
+        for (int friend : friends) {
+            edges += friendsOf.apply(friend).length;
+        }
+        IntIntCountMap mutualFriends = edges >= PARALLEL_EDGES && pool.getParallelism() > 1
+                ? countInParallel(userId, friends, edges)
+                : count(userId, friends, 0, friends.length, edges);
+        TopIds top = new TopIds(limit);
+        mutualFriends.forEach(top::offer);
+        return top.toArray();
+    }
+
+    /**
+     * Splits the friend list into a few slices per pool thread and merges the partial counts
+     * once, largest first, instead of pairwise at every level of a recursive split.
+     */
+    private IntIntCountMap countInParallel(int userId, int[] friends, long edges) {
+        int slices = Math.min(friends.length, pool.getParallelism() * TASKS_PER_THREAD);
+        List<ForkJoinTask<IntIntCountMap>> tasks = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) friends.length * slice / slices);
+            int to = (int) ((long) friends.length * (slice + 1) / slices);
+            tasks.add(pool.submit(() -> count(userId, friends, from, to, edges / slices)));
+        }
+
+        List<IntIntCountMap> partials = new ArrayList<>(slices);
+        for (ForkJoinTask<IntIntCountMap> task : tasks) {
+            partials.add(task.join());
+        }
+        partials.sort(Comparator.comparingInt(IntIntCountMap::size).reversed());
+        IntIntCountMap merged = partials.getFirst();
+        for (int i = 1; i < partials.size(); i++) {
+            merged.addAll(partials.get(i));
+        }
+        return merged;
+    }
+
+    private IntIntCountMap count(int userId, int[] friends, int from, int to, long expectedEdges) {
+        IntIntCountMap mutualFriends = new IntIntCountMap((int) Math.min(expectedEdges, MAX_PRESIZE));
+        for (int i = from; i < to; i++) {
+            for (int candidate : friendsOf.apply(friends[i])) {
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    mutualFriends.increment(candidate);
+                }
+            }
+        }
+        return mutualFriends;
+    }
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only file of like/unlike records with group commit: concurrent writers waiting for
+ * durability share a single fsync. Records of a flush in progress are moved to a sibling
+ * {@code .flushing} file, which is deleted once the database has them.
+ */
+final class LikeLog implements Closeable {
+
+    static final byte LIKE = 1;
+
+    static final byte UNLIKE = 2;
+
+    private static final int RECORD_SIZE = 9;
+
+    private final Path path;
+
+    private final Path flushingPath;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private FileChannel channel;
+
+    private volatile long appended;
+
+    private volatile long durable;
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(byte op, int filmId, int userId);
+    }
+
+    LikeLog(Path path) {
+        this.path = path;
+        this.flushingPath = path.resolveSibling(path.getFileName() + ".flushing");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open like log " + path, e);
+        }
+    }
+
+    /**
+     * Writes a record to the file and returns its sequence number for {@link #awaitDurable(long)}.
+     */
+    long append(byte op, int filmId, int userId) {
+        appendLock.lock();
+        try {
+            record.clear();
+            record.put(op).putInt(filmId).putInt(userId).flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            return ++appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to like log " + path, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void awaitDurable(long sequence) {
+        if (durable >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durable >= sequence) {
+                return;
+            }
+            long covered = appended;
+            channel.force(false);
+            durable = covered;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync like log " + path, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Hands every record written so far over to the {@code .flushing} file and starts an empty log.
+     * Records left there by a failed flush are kept in front of the new ones.
+     */
+    void rotate() {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+            if (Files.exists(flushingPath)) {
+                try (FileChannel target = FileChannel.open(flushingPath, StandardOpenOption.APPEND);
+                     FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long size = source.size();
+                    for (long position = 0; position < size; ) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                    target.force(false);
+                }
+                channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                Files.move(path, flushingPath, StandardCopyOption.ATOMIC_MOVE);
+                channel = open(path);
+            }
+            durable = appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate like log " + path, e);
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    void completeFlush() {
+        try {
+            Files.deleteIfExists(flushingPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete " + flushingPath, e);
+        }
+    }
+
+    /**
+     * Reads the unflushed records in the order they were written. A torn record at the tail is skipped.
+     */
+    void replay(RecordHandler handler) {
+        try {
+            for (Path file : new Path[]{flushingPath, path}) {
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(file));
+                while (records.remaining() >= RECORD_SIZE) {
+                    handler.accept(records.get(), records.getInt(), records.getInt());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay like log " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close like log " + path, e);
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,282 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.utils.AdjacencyIndex;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind path for likes. An event is acknowledged once it is in the fsync'ed
+ * {@link LikeLog}; the resulting state of each (film, user) pair is kept in memory and written
+ * to film_likes in batches. A like followed by an unlike of the same pair cancels out before
+ * reaching the database.
+ * <p>
+ * Whether a pair is liked is answered from memory: the liked films of every user are loaded at
+ * start and follow each completed flush. The leaderboard and recommendations follow an accepted
+ * event at once, while film_likes, films.like_count and the autocomplete weights only change when
+ * its batch is flushed, up to flush-interval-ms later.
+ */
+@Slf4j
+@Component
+public class LikeWriteBehind {
+
+    private final FilmStorage filmStorage;
+
+    private final boolean enabled;
+
+    private final Path logPath;
+
+    private final long flushIntervalMs;
+
+    private final int flushThreshold;
+
+    private final boolean virtualThreads;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // Liked films of each user as stored in film_likes, guarded by lock
+    private final AdjacencyIndex persisted = new AdjacencyIndex();
+
+    // Desired like state of pairs that differ from what the database will hold once inFlight is applied
+    private Map<Long, Boolean> pending = new HashMap<>();
+
+    private Map<Long, Boolean> inFlight = Map.of();
+
+    private LikeLog likeLog;
+
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public LikeWriteBehind(FilmStorage dbFilmStorage,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.log-path:./db/film-likes.log}") String logPath,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${filmorate.likes.write-behind.flush-threshold:5000}") int flushThreshold,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.filmStorage = dbFilmStorage;
+        this.enabled = enabled;
+        this.logPath = Path.of(logPath);
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushThreshold = flushThreshold;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        likeLog = new LikeLog(logPath);
+        recover();
+        AdjacencyIndex.Loader loader = persisted.reload();
+        filmStorage.forEachLikeByUser(loader::append);
+        loader.finish();
+
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("like-write-behind").factory()
+                : Thread.ofPlatform().name("like-write-behind").daemon().factory();
+        flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushIntervalMs + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        likeLog.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns true if the pair was not liked before, i.e. the like count of the film grows.
+     */
+    public boolean like(int filmId, int userId) {
+        return record(filmId, userId, true);
+    }
+
+    /**
+     * Returns true if the pair was liked before, i.e. the like count of the film shrinks.
+     */
+    public boolean unlike(int filmId, int userId) {
+        return record(filmId, userId, false);
+    }
+
+    public int pendingSize() {
+        lock.lock();
+        try {
+            return pending.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all acknowledged events to the database.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Long, Boolean> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new HashMap<>();
+                likeLog.rotate();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                restore(batch);
+                throw e;
+            }
+
+            lock.lock();
+            try {
+                batch.forEach((key, liked) -> {
+                    if (liked) {
+                        persisted.add(userId(key), filmId(key));
+                    } else {
+                        persisted.remove(userId(key), filmId(key));
+                    }
+                });
+                inFlight = Map.of();
+            } finally {
+                lock.unlock();
+            }
+            likeLog.completeFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean record(int filmId, int userId, boolean liked) {
+        long key = key(filmId, userId);
+        long sequence;
+        lock.lock();
+        try {
+            Boolean current = pending.get(key);
+            boolean buffered = current != null;
+            if (current == null) {
+                current = inFlight.get(key);
+            }
+            if (current == null) {
+                current = persisted.contains(userId, filmId);
+            }
+            if (current == liked) {
+                return false;
+            }
+
+            sequence = likeLog.append(liked ? LikeLog.LIKE : LikeLog.UNLIKE, filmId, userId);
+            if (buffered) {
+                pending.remove(key);
+            } else {
+                pending.put(key, liked);
+            }
+            if (pending.size() >= flushThreshold && !flusher.isShutdown()
+                    && flushRequested.compareAndSet(false, true)) {
+                flusher.execute(this::flushQuietly);
+            }
+        } finally {
+            lock.unlock();
+        }
+        likeLog.awaitDurable(sequence);
+        return true;
+    }
+
+    private void restore(Map<Long, Boolean> batch) {
+        lock.lock();
+        try {
+            // A newer event on a pair of the failed batch always reverts it to the database state
+            batch.forEach((key, liked) -> {
+                if (pending.remove(key) == null) {
+                    pending.put(key, liked);
+                }
+            });
+            inFlight = Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recover() {
+        Map<Long, Boolean> recovered = new HashMap<>();
+        likeLog.replay((op, filmId, userId) -> recovered.put(key(filmId, userId), op == LikeLog.LIKE));
+        if (recovered.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> deltas = apply(recovered);
+        likeLog.rotate();
+        likeLog.completeFlush();
+        log.info("Replayed {} buffered likes from {}, like counts of {} films changed",
+                recovered.size(), logPath, deltas.size());
+    }
+
+    private Map<Integer, Integer> apply(Map<Long, Boolean> batch) {
+        List<int[]> added = new ArrayList<>();
+        List<int[]> removed = new ArrayList<>();
+        batch.forEach((key, liked) -> {
+            int[] pair = {filmId(key), userId(key)};
+            (liked ? added : removed).add(pair);
+        });
+        return filmStorage.applyLikeChanges(added, removed);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Flushing buffered likes failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private static long key(int filmId, int userId) {
+        return (long) filmId << 32 | (userId & 0xFFFFFFFFL);
+    }
+
+    private static int filmId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int userId(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/referencedata} shows how many genres and ratings are cached;
+ * {@code POST} reloads them after the tables were edited directly in the database.
+ */
+@Component
+@Endpoint(id = "referencedata")
+@RequiredArgsConstructor
+public class ReferenceDataEndpoint {
+
+    private final FilmService service;
+
+    @ReadOperation
+    public Map<String, Integer> counts() {
+        return Map.of("genres", service.getGenres().size(), "ratings", service.getRatings().size());
+    }
+
+    @WriteOperation
+    public Map<String, Integer> refresh() {
+        service.refreshReferenceData();
+        return counts();
+    }
+}
@@ -2,12 +2,22 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dal.UserStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.utils.ErrorMessages.USER_NOT_FOUND;
 
@@ -16,15 +26,30 @@ import static ru.yandex.practicum.filmorate.utils.ErrorMessages.USER_NOT_FOUND;
 public class UserService {
     private final UserStorage userStorage;
 
+    private final int batchChunkSize;
+
+    private final FriendSuggestions friendSuggestions;
+
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage,
+                       @Value("${filmorate.batch.chunk-size:500}") int batchChunkSize) {
         this.userStorage = userStorage;
+        this.batchChunkSize = batchChunkSize;
+        this.friendSuggestions = new FriendSuggestions(userStorage::getFriendIds);
     }
 
     public List<User> getUsers() {
         return userStorage.findAll();
     }
 
+    public List<User> getUsers(int afterId, int limit) {
+        return userStorage.findPage(afterId, limit);
+    }
+
+    public void exportUsers(RowCallbackHandler handler) {
+        userStorage.streamAll(handler);
+    }
+
     public User getUser(int id) {
         return userStorage.findById(id).orElseThrow(() -> new NotFoundException(USER_NOT_FOUND + id));
     }
@@ -35,6 +60,21 @@ public class UserService {
         return user;
     }
 
+    public List<BatchItemResult<User>> createAll(List<User> users) {
+        users.forEach(this::setName);
+        List<BatchItemResult<User>> results = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += batchChunkSize) {
+            List<User> chunk = users.subList(from, Math.min(from + batchChunkSize, users.size()));
+            try {
+                userStorage.addAll(chunk).forEach(user -> results.add(BatchItemResult.created(user)));
+            } catch (RuntimeException e) {
+                log.debug("Batch insert of {} users failed, retrying one by one: {}", chunk.size(), e.getMessage());
+                chunk.forEach(user -> results.add(createOne(user)));
+            }
+        }
+        return results;
+    }
+
     public User updateUser(User newUser) {
         setName(newUser);
         userStorage.update(newUser);
@@ -53,7 +93,6 @@ public class UserService {
     }
 
     public void removeFriend(Integer userId, Integer friendId) {
-        List<Integer> userFriends = getUserFriendIds(userId);
         if (!userStorage.contains(userId)) {
             throw new NotFoundException("Can't remove friend of non-existing user with id " + userId);
         }
@@ -62,7 +101,7 @@ public class UserService {
             throw new NotFoundException("Can't remove non-existing friend with id " + friendId);
         }
 
-        if (!userFriends.contains(friendId)) {
+        if (!userStorage.isFriend(userId, friendId)) {
             return;
         }
 
@@ -83,6 +122,35 @@ public class UserService {
         return userStorage.getCommonFriends(userId, friendId);
     }
 
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        if (!userStorage.contains(userId)) {
+            throw new NotFoundException(USER_NOT_FOUND + userId);
+        }
+
+        int[] suggestedIds = friendSuggestions.suggest(userId, limit);
+        Map<Integer, User> usersById = userStorage.findByIds(suggestedIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return Arrays.stream(suggestedIds)
+                .mapToObj(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public List<PrefixIndex.Completion> autocompleteUsers(String prefix, int limit) {
+        return userStorage.autocomplete(prefix, limit);
+    }
+
+    private BatchItemResult<User> createOne(User user) {
+        try {
+            return BatchItemResult.created(userStorage.add(user));
+        } catch (DuplicateKeyException e) {
+            return BatchItemResult.failed("User with login " + user.getLogin() + " or email " + user.getEmail() +
+                    " already exists");
+        } catch (RuntimeException e) {
+            return BatchItemResult.failed(e);
+        }
+    }
+
     private void setName(User user) {
         String name = user.getName();
         if (name == null || name.isBlank()) {
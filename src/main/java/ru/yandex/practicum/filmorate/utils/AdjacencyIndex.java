@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Directed graph kept as one sorted {@code int[]} of neighbours per node id. Rows are never
+ * modified in place, a writer publishes a new copy, so readers need no locking.
+ */
+public final class AdjacencyIndex {
+
+    private static final int INITIAL_NODES = 1024;
+
+    private static final int[] EMPTY = new int[0];
+
+    private volatile AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(INITIAL_NODES);
+
+    /**
+     * Returns the sorted neighbours of a node. The array is shared and must not be modified.
+     */
+    public int[] get(int node) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (node < 0 || node >= current.length()) {
+            return EMPTY;
+        }
+        int[] row = current.get(node);
+        return row != null ? row : EMPTY;
+    }
+
+    /**
+     * Returns an upper bound for node ids that may have neighbours.
+     */
+    public int nodeLimit() {
+        return rows.length();
+    }
+
+    public boolean contains(int node, int neighbour) {
+        return Arrays.binarySearch(get(node), neighbour) >= 0;
+    }
+
+    public synchronized boolean add(int node, int neighbour) {
+        int[] row = get(node);
+        int position = Arrays.binarySearch(row, neighbour);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        int[] grown = new int[row.length + 1];
+        System.arraycopy(row, 0, grown, 0, insertAt);
+        grown[insertAt] = neighbour;
+        System.arraycopy(row, insertAt, grown, insertAt + 1, row.length - insertAt);
+        ensureCapacity(node).set(node, grown);
+        return true;
+    }
+
+    public synchronized boolean remove(int node, int neighbour) {
+        int[] row = get(node);
+        int position = Arrays.binarySearch(row, neighbour);
+        if (position < 0) {
+            return false;
+        }
+        int[] shrunk = new int[row.length - 1];
+        System.arraycopy(row, 0, shrunk, 0, position);
+        System.arraycopy(row, position + 1, shrunk, position, row.length - position - 1);
+        rows.set(node, shrunk);
+        return true;
+    }
+
+    public synchronized void clear() {
+        rows = new AtomicReferenceArray<>(INITIAL_NODES);
+    }
+
+    /**
+     * Clears the index and returns a loader for edges sorted by node, then neighbour.
+     */
+    public Loader reload() {
+        clear();
+        return new Loader();
+    }
+
+    /**
+     * Linear merge of two sorted arrays.
+     */
+    public static int[] intersect(int[] left, int[] right) {
+        int[] common = new int[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                common[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return size == common.length ? common : Arrays.copyOf(common, size);
+    }
+
+    private synchronized void set(int node, int[] sortedNeighbours) {
+        ensureCapacity(node).set(node, sortedNeighbours);
+    }
+
+    public final class Loader {
+
+        private int node = -1;
+
+        private int[] buffer = new int[16];
+
+        private int size;
+
+        public void append(int node, int neighbour) {
+            if (node != this.node) {
+                finish();
+                this.node = node;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = neighbour;
+        }
+
+        public void finish() {
+            if (size > 0) {
+                set(node, Arrays.copyOf(buffer, size));
+                size = 0;
+            }
+        }
+    }
+
+    private AtomicReferenceArray<int[]> ensureCapacity(int node) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (node < current.length()) {
+            return current;
+        }
+        int length = current.length();
+        while (length <= node) {
+            length *= 2;
+        }
+        AtomicReferenceArray<int[]> grown = new AtomicReferenceArray<>(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        rows = grown;
+        return grown;
+    }
+}
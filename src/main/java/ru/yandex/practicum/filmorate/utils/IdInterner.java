@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.Arrays;
+
+/**
+ * One canonical instance per small non-negative id, for immutable reference rows such as
+ * genres and ratings. Reads are a plain array lookup; the rare write copies the array, so
+ * readers never lock.
+ */
+public final class IdInterner<T> {
+
+    private volatile Object[] byId = new Object[8];
+
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        Object[] snapshot = byId;
+        return id >= 0 && id < snapshot.length ? (T) snapshot[id] : null;
+    }
+
+    /**
+     * Makes {@code value} the canonical instance for its id and returns it.
+     */
+    public synchronized T put(int id, T value) {
+        if (id < 0) {
+            return value;
+        }
+        Object[] copy = Arrays.copyOf(byId, Math.max(byId.length, id + 1));
+        copy[id] = value;
+        byId = copy;
+        return value;
+    }
+}
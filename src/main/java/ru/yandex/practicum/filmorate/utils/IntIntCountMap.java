@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative int keys to int counters, without boxing.
+ */
+public final class IntIntCountMap {
+
+    private static final int FREE = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+
+    private int[] counts;
+
+    private int size;
+
+    private int resizeAt;
+
+    public IntIntCountMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(8, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    public void add(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key " + key);
+        }
+        int slot = slot(keys, key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            counts[slot] = delta;
+            if (++size >= resizeAt) {
+                rehash();
+            }
+        } else {
+            counts[slot] += delta;
+        }
+    }
+
+    public int get(int key) {
+        int slot = slot(keys, key);
+        return keys[slot] == FREE ? 0 : counts[slot];
+    }
+
+    public void addAll(IntIntCountMap other) {
+        other.forEach(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(IntPairConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, FREE);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,318 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weighted prefix completion over one string per id. Keys are kept lower-cased in one sorted
+ * array, so the completions of a prefix are a contiguous range found by binary search; a segment
+ * tree over the weights holds the position of the heaviest entry of every node, so the top
+ * {@code k} of a range of any size take O(k log n). A weight change is a point update of the
+ * tree.
+ * <p>
+ * New and renamed keys go to a small sorted buffer searched alongside the arrays and are merged
+ * into them once the buffer holds {@link #MERGE_THRESHOLD} entries; the old position of a renamed
+ * key is disabled by giving it a negative weight until then.
+ */
+public final class PrefixIndex {
+
+    private static final int MERGE_THRESHOLD = 4096;
+
+    private static final int REMOVED = -1;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingInt(Entry::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] keys = new String[0];
+
+    private String[] texts = new String[0];
+
+    private int[] ids = new int[0];
+
+    private int[] weights = new int[0];
+
+    private int[] tree = new int[0];
+
+    private int[] positionById = new int[0];
+
+    private final NavigableSet<Entry> pending = new TreeSet<>(ORDER);
+
+    private final Map<Integer, Entry> pendingById = new HashMap<>();
+
+    /**
+     * Replaces the whole index with the given entries.
+     */
+    public void rebuild(List<Completion> entries) {
+        List<Entry> sorted = new ArrayList<>(entries.size());
+        for (Completion completion : entries) {
+            sorted.add(new Entry(normalize(completion.text()), completion.text(), completion.id(),
+                    completion.weight()));
+        }
+        sorted.sort(ORDER);
+
+        lock.writeLock().lock();
+        try {
+            pending.clear();
+            pendingById.clear();
+            load(sorted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the text of an id, keeping its weight, or adds it with weight 0 if it is new.
+     */
+    public void put(int id, String text) {
+        String key = normalize(text);
+        lock.writeLock().lock();
+        try {
+            int position = position(id);
+            if (position >= 0 && texts[position].equals(text)) {
+                return;
+            }
+            Entry previous = pendingById.remove(id);
+            int weight = previous != null ? previous.weight() : position >= 0 ? weights[position] : 0;
+            if (previous != null) {
+                pending.remove(previous);
+            }
+            if (position >= 0) {
+                positionById[id] = REMOVED;
+                setWeightAt(position, REMOVED);
+            }
+            Entry entry = new Entry(key, text, id, weight);
+            pending.add(entry);
+            pendingById.put(id, entry);
+            if (pending.size() >= MERGE_THRESHOLD) {
+                merge();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setWeight(int id, int weight) {
+        lock.writeLock().lock();
+        try {
+            updateWeight(id, weight, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addWeight(int id, int delta) {
+        lock.writeLock().lock();
+        try {
+            updateWeight(id, delta, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int position = position(id);
+            if (position >= 0) {
+                positionById[id] = REMOVED;
+                setWeightAt(position, REMOVED);
+            }
+            Entry previous = pendingById.remove(id);
+            if (previous != null) {
+                pending.remove(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        rebuild(List.of());
+    }
+
+    /**
+     * Returns up to {@code limit} entries whose text starts with {@code prefix}, ignoring case,
+     * heaviest first.
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String from = normalize(prefix);
+        String to = from + Character.MAX_VALUE;
+        List<Completion> completions = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            int lo = lowerBound(from);
+            int hi = lowerBound(to);
+            if (lo < hi && limit > 0) {
+                PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(a[0], b[0]));
+                ranges.add(new int[]{best(lo, hi), lo, hi});
+                while (completions.size() < limit && !ranges.isEmpty()) {
+                    int[] range = ranges.poll();
+                    int position = range[0];
+                    if (weights[position] < 0) {
+                        break;
+                    }
+                    completions.add(new Completion(ids[position], texts[position], weights[position]));
+                    if (range[1] < position) {
+                        ranges.add(new int[]{best(range[1], position), range[1], position});
+                    }
+                    if (position + 1 < range[2]) {
+                        ranges.add(new int[]{best(position + 1, range[2]), position + 1, range[2]});
+                    }
+                }
+            }
+            for (Entry entry : pending.subSet(new Entry(from, null, Integer.MIN_VALUE, 0), true,
+                    new Entry(to, null, Integer.MIN_VALUE, 0), false)) {
+                completions.add(new Completion(entry.id(), entry.text(), entry.weight()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        completions.sort(Comparator.comparingInt(Completion::weight).reversed()
+                .thenComparing(Completion::text));
+        return completions.size() > limit ? completions.subList(0, limit) : completions;
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    private void merge() {
+        List<Entry> merged = new ArrayList<>(ids.length + pending.size());
+        Iterator<Entry> added = pending.iterator();
+        Entry next = added.hasNext() ? added.next() : null;
+        for (int i = 0; i < ids.length; i++) {
+            if (positionById[ids[i]] != i) {
+                continue;
+            }
+            Entry current = new Entry(keys[i], texts[i], ids[i], weights[i]);
+            while (next != null && ORDER.compare(next, current) < 0) {
+                merged.add(next);
+                next = added.hasNext() ? added.next() : null;
+            }
+            merged.add(current);
+        }
+        while (next != null) {
+            merged.add(next);
+            next = added.hasNext() ? added.next() : null;
+        }
+        pending.clear();
+        pendingById.clear();
+        load(merged);
+    }
+
+    private void updateWeight(int id, int value, boolean delta) {
+        int position = position(id);
+        if (position >= 0) {
+            setWeightAt(position, Math.max(0, delta ? weights[position] + value : value));
+            return;
+        }
+        Entry entry = pendingById.get(id);
+        if (entry != null) {
+            Entry updated = new Entry(entry.key(), entry.text(), id,
+                    Math.max(0, delta ? entry.weight() + value : value));
+            pending.remove(entry);
+            pending.add(updated);
+            pendingById.put(id, updated);
+        }
+    }
+
+    private void load(List<Entry> sorted) {
+        int size = sorted.size();
+        keys = new String[size];
+        texts = new String[size];
+        ids = new int[size];
+        weights = new int[size];
+        int maxId = sorted.stream().mapToInt(Entry::id).max().orElse(-1);
+        positionById = new int[maxId + 1];
+        Arrays.fill(positionById, REMOVED);
+        for (int i = 0; i < size; i++) {
+            Entry entry = sorted.get(i);
+            keys[i] = entry.key();
+            texts[i] = entry.text();
+            ids[i] = entry.id();
+            weights[i] = entry.weight();
+            positionById[entry.id()] = i;
+        }
+        tree = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            tree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private int position(int id) {
+        return id >= 0 && id < positionById.length ? positionById[id] : REMOVED;
+    }
+
+    private void setWeightAt(int position, int weight) {
+        weights[position] = weight;
+        int size = ids.length;
+        for (int node = (position + size) >> 1; node > 0; node >>= 1) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Position of the heaviest entry in [from, to); ties go to the earlier key.
+     */
+    private int best(int from, int to) {
+        int size = ids.length;
+        int best = from;
+        for (int l = from + size, r = to + size; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                best = better(best, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                best = better(best, tree[--r]);
+            }
+        }
+        return best;
+    }
+
+    private int better(int a, int b) {
+        return compare(a, b) <= 0 ? a : b;
+    }
+
+    private int compare(int a, int b) {
+        if (weights[a] != weights[b]) {
+            return Integer.compare(weights[b], weights[a]);
+        }
+        return Integer.compare(a, b);
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public record Completion(int id, String text, int weight) {
+    }
+
+    private record Entry(String key, String text, int id, int weight) {
+    }
+}
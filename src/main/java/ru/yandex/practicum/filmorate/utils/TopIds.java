@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the ids with the highest non-negative scores, ties broken by the smaller id. Each
+ * candidate is packed into one long (score in the high half), so a bounded min-heap of longs
+ * does the ranking without boxing.
+ */
+public final class TopIds {
+
+    private final long[] heap;
+
+    private int size;
+
+    public TopIds(int limit) {
+        heap = new long[Math.max(0, limit)];
+    }
+
+    public void offer(int id, int score) {
+        long rank = (long) score << 32 | (Integer.MAX_VALUE - id);
+        if (size < heap.length) {
+            heap[size] = rank;
+            siftUp(size++);
+        } else if (size > 0 && rank > heap[0]) {
+            heap[0] = rank;
+            siftDown();
+        }
+    }
+
+    /**
+     * Returns the kept ids, best first.
+     */
+    public int[] toArray() {
+        long[] ranks = Arrays.copyOf(heap, size);
+        Arrays.sort(ranks);
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) ranks[size - 1 - i];
+        }
+        return ids;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown() {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(smallest, index);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
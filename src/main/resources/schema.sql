@@ -15,6 +15,7 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration BIGINT NOT NULL,
     mpa_rating_id INTEGER NOT NULL,
+    like_count INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT fk_mpa_rating_id FOREIGN KEY (mpa_rating_id) REFERENCES ratings (rating_id) ON DELETE CASCADE
 );
 
@@ -45,6 +46,22 @@ CREATE TABLE IF NOT EXISTS film_likes (
     PRIMARY KEY (film_id, liked_user_id)
 );
 
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name VARCHAR(255) PRIMARY KEY
+);
+
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE films f SET like_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'films.like_count');
+
+INSERT INTO schema_migrations (name)
+SELECT 'films.like_count' WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'films.like_count');
+
+DROP INDEX IF EXISTS FILMS_LIKE_COUNT_INDEX;
+
+CREATE INDEX IF NOT EXISTS FILM_LIKES_USER_INDEX ON film_likes (liked_user_id, film_id);
+
 CREATE TABLE IF NOT EXISTS films_genres (
     film_id INTEGER NOT NULL,
     genre_id INTEGER NOT NULL,
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.controller.mappers.FilmJsonSerializer;
+import ru.yandex.practicum.filmorate.controller.mappers.FilmMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.GenreMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.MpaRatingMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.UserJsonSerializer;
+import ru.yandex.practicum.filmorate.controller.mappers.UserMapper;
+import ru.yandex.practicum.filmorate.dto.CreateFilmDto;
+import ru.yandex.practicum.filmorate.dto.GenreDto;
+import ru.yandex.practicum.filmorate.dto.MpaRatingDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of the controller mappers per film or user, for films with 0, 2 and all 6 genres, and of
+ * writing a whole list response as JSON either through the DTOs or with the direct serializers.
+ * Run with {@code mvn -P benchmark verify -Dbenchmark.args="DtoMapperBenchmark -prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMapperBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    private static final String[] GENRES = {"Комедия", "Драма", "Мультфильм", "Триллер", "Документальный", "Боевик"};
+
+    private static final String[] RATINGS = {"G", "PG", "PG-13", "R", "NC-17"};
+
+    @Param({"0", "2", "6"})
+    private int genresPerFilm;
+
+    private final FilmMapper filmMapper = new FilmMapper(new GenreMapper(), new MpaRatingMapper());
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializers(new FilmJsonSerializer(), new UserJsonSerializer())
+            .build();
+
+    private Film[] films;
+
+    private CreateFilmDto[] createFilmDtos;
+
+    private User[] users;
+
+    @Setup
+    public void prepare() {
+        films = new Film[ITEMS];
+        createFilmDtos = new CreateFilmDto[ITEMS];
+        users = new User[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            int first = i;
+            LinkedHashSet<Genre> genres = IntStream.range(0, genresPerFilm)
+                    .map(offset -> (first + offset) % GENRES.length)
+                    .mapToObj(genre -> Genre.of(genre + 1, GENRES[genre]))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            films[i] = Film.builder()
+                    .id(i + 1)
+                    .name("Film " + i)
+                    .description("A benchmark film number " + i + " with a description of a typical length")
+                    .releaseDate(LocalDate.of(1990 + i % 30, 1 + i % 12, 1 + i % 28))
+                    .duration(90 + i % 60)
+                    .mpa(MpaRating.of(1 + i % 5, RATINGS[i % 5]))
+                    .genres(genres)
+                    .build();
+
+            CreateFilmDto dto = new CreateFilmDto();
+            dto.setName(films[i].getName());
+            dto.setDescription(films[i].getDescription());
+            dto.setReleaseDate(films[i].getReleaseDate());
+            dto.setDuration(films[i].getDuration());
+            MpaRatingDto mpa = MpaRatingDto.builder().id(films[i].getMpa().getId()).build();
+            dto.setMpa(mpa);
+            dto.setGenres(genres.stream()
+                    .map(genre -> GenreDto.builder().id(genre.getId()).build())
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+            createFilmDtos[i] = dto;
+
+            users[i] = User.builder()
+                    .id(i + 1)
+                    .name("User " + i)
+                    .login("login" + i)
+                    .email("user" + i + "@example.com")
+                    .birthday(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void filmToDto(Blackhole blackhole) {
+        for (Film film : films) {
+            blackhole.consume(filmMapper.map(film));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void filmListJsonViaDto() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(),
+                Arrays.stream(films).map(filmMapper::map).toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void filmListJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), Arrays.asList(films));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void createDtoToFilm(Blackhole blackhole) {
+        for (CreateFilmDto dto : createFilmDtos) {
+            blackhole.consume(filmMapper.map(dto));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void userToDto(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(userMapper.map(user));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void userListJsonViaDto() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(),
+                Arrays.stream(users).map(userMapper::map).toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void userListJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), Arrays.asList(users));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.dal.impl.DbFilmStorage;
+import ru.yandex.practicum.filmorate.dal.impl.DbGenreStorage;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Films inserted per second through the single-item path versus the chunked batch path.
+ * Run with {@code mvn -P benchmark verify -Dbenchmark.args=FilmBatchInsertBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmBatchInsertBenchmark {
+
+    private static final int FILMS_PER_INVOCATION = 1000;
+
+    @Param({"100", "500"})
+    private int chunkSize;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DbFilmStorage filmStorage;
+
+    private DbGenreStorage genreStorage;
+
+    private List<Film> films;
+
+    @Setup(Level.Trial)
+    public void openDatabase() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("batch-benchmark-" + UUID.randomUUID())
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        filmStorage = new DbFilmStorage(jdbcTemplate, new FilmRowMapper());
+        genreStorage = new DbGenreStorage(jdbcTemplate, new GenreRowMapper());
+        genreStorage.refresh();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareFilms() {
+        jdbcTemplate.update("DELETE FROM films_genres");
+        jdbcTemplate.update("DELETE FROM films");
+        films = new ArrayList<>(FILMS_PER_INVOCATION);
+        for (int i = 0; i < FILMS_PER_INVOCATION; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Benchmark film " + i)
+                    .releaseDate(LocalDate.of(1990 + i % 30, 1 + i % 12, 1 + i % 28))
+                    .duration(90 + i % 60)
+                    .mpa(MpaRating.builder().id(1 + i % 5).build())
+                    .genres(new LinkedHashSet<>(List.of(
+                            Genre.builder().id(1 + i % 6).build(),
+                            Genre.builder().id(1 + (i + 1) % 6).build())))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILMS_PER_INVOCATION)
+    public List<Film> singleItem() {
+        for (Film film : films) {
+            filmStorage.add(film);
+            genreStorage.addGenresOfFilm(film);
+        }
+        return films;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILMS_PER_INVOCATION)
+    public List<Film> batched() {
+        for (int from = 0; from < films.size(); from += chunkSize) {
+            filmStorage.addAll(films.subList(from, Math.min(from + chunkSize, films.size())));
+        }
+        genreStorage.addGenresOfFilms(films);
+        return films;
+    }
+}
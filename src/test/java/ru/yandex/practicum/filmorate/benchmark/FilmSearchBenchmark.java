@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of {@link FilmSearchIndex} over a synthetic catalog whose Cyrillic vocabulary
+ * follows a Zipf-like distribution, so the most frequent words behave like stop words.
+ * Run with {@code mvn -P benchmark verify -Dbenchmark.args="FilmSearchBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+
+    private static final int DESCRIPTION_WORDS = 20;
+
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ло", "на", "те", "ду", "ше", "вё", "зу", "пи", "ры",
+            "го", "ля", "бе", "жи"};
+
+    @Param({"1000000"})
+    private int films;
+
+    private final FilmSearchIndex index = new FilmSearchIndex();
+
+    @Setup
+    public void prepare() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder description = new StringBuilder();
+        for (int film = 1; film <= films; film++) {
+            description.setLength(0);
+            for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+                description.append(word(zipf(random))).append(' ');
+            }
+            index.put(film, word(zipf(random)) + " " + word(zipf(random)), description.toString());
+        }
+    }
+
+    @Benchmark
+    public int[] rareTerm() {
+        return index.search(word(20_000), 10);
+    }
+
+    @Benchmark
+    public int[] mediumTerm() {
+        return index.search(word(500), 10);
+    }
+
+    @Benchmark
+    public int[] rareTermAndStopWord() {
+        return index.search(word(20_000) + " " + word(0), 10);
+    }
+
+    @Benchmark
+    public int[] twoMediumTerms() {
+        return index.search(word(300) + " " + word(700), 10);
+    }
+
+    @Benchmark
+    public int[] stopWordOnly() {
+        return index.search(word(0), 10);
+    }
+
+    /**
+     * Word rank with probability roughly proportional to 1 / (rank + 1).
+     */
+    private static int zipf(SplittableRandom random) {
+        return (int) Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1;
+    }
+
+    private static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        int value = rank;
+        do {
+            word.append(SYLLABLES[value % SYLLABLES.length]);
+            value /= SYLLABLES.length;
+        } while (value > 0);
+        return word.length() > 2 ? word.toString() : word + "н";
+    }
+}
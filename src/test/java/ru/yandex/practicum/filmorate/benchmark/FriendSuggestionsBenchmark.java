@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FriendSuggestions;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Friend suggestions on a synthetic graph of 1M users and about 50M friendships, for an
+ * ordinary user (50 friends) and for a hub (5000 friends) that takes the fork/join path.
+ * Run with {@code mvn -P benchmark verify -Dbenchmark.args=FriendSuggestionsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FriendSuggestionsBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    private static final int FRIENDS_PER_USER = 50;
+
+    private static final int HUBS = 100;
+
+    private static final int FRIENDS_PER_HUB = 5_000;
+
+    @Param({"ordinary", "hub"})
+    private String user;
+
+    private int[][] graph;
+
+    private FriendSuggestions suggestions;
+
+    private int userId;
+
+    @Setup
+    public void buildGraph() {
+        SplittableRandom random = new SplittableRandom(7);
+        graph = new int[USERS][];
+        IntStream.range(0, USERS).parallel().forEach(id -> {
+            SplittableRandom local = random.split();
+            int degree = id < HUBS ? FRIENDS_PER_HUB : FRIENDS_PER_USER;
+            graph[id] = local.ints(degree, 0, USERS).filter(friend -> friend != id).distinct().sorted().toArray();
+        });
+        suggestions = new FriendSuggestions(id -> graph[id]);
+        userId = "hub".equals(user) ? 0 : USERS / 2;
+    }
+
+    @Benchmark
+    public int[] suggest() {
+        return suggestions.suggest(userId, 10);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of {@link FilmRowMapper} and {@link UserRowMapper} per row over real H2 result sets
+ * shaped like the storage queries. The result sets are scrollable and rewound on every
+ * invocation, so {@code cursor*} measures what the driver costs without any mapping.
+ * Run with {@code mvn -P benchmark verify -Dbenchmark.args="RowMapperBenchmark -prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private static final String SELECT_FILMS = "SELECT " +
+            "f.film_id AS film_id, " +
+            "f.name AS film_name, " +
+            "f.description AS description, " +
+            "f.release_date AS release_date, " +
+            "f.duration AS duration, " +
+            "r.rating_id AS rating_id, " +
+            "r.rating_name AS rating_name " +
+            "FROM films f " +
+            "INNER JOIN ratings r ON f.mpa_rating_id = r.rating_id " +
+            "ORDER BY f.film_id";
+
+    private static final String SELECT_USERS = "SELECT * FROM users ORDER BY user_id";
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+
+    private EmbeddedDatabase database;
+
+    private Connection connection;
+
+    private ResultSet films;
+
+    private ResultSet users;
+
+    @Setup(Level.Trial)
+    public void openResultSets() throws SQLException {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("row-mapper-benchmark-" + UUID.randomUUID())
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                IntStream.range(0, ROWS).mapToObj(i -> new Object[]{
+                        "Film " + i,
+                        "A benchmark film number " + i + " with a description of a typical length",
+                        Date.valueOf(LocalDate.of(1990 + i % 30, 1 + i % 12, 1 + i % 28)),
+                        90 + i % 60,
+                        1 + i % 5}).toList());
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, login, email, birthday) VALUES (?, ?, ?, ?)",
+                IntStream.range(0, ROWS).mapToObj(i -> new Object[]{
+                        "User " + i,
+                        "login" + i,
+                        "user" + i + "@example.com",
+                        Date.valueOf(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28))}).toList());
+
+        connection = database.getConnection();
+        films = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+                .executeQuery(SELECT_FILMS);
+        users = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+                .executeQuery(SELECT_USERS);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException {
+        connection.close();
+        database.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void cursorFilms(Blackhole blackhole) throws SQLException {
+        films.beforeFirst();
+        while (films.next()) {
+            blackhole.consume(films.getRow());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void filmRowMapper(Blackhole blackhole) throws SQLException {
+        films.beforeFirst();
+        while (films.next()) {
+            blackhole.consume(filmRowMapper.mapRow(films, films.getRow()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void cursorUsers(Blackhole blackhole) throws SQLException {
+        users.beforeFirst();
+        while (users.next()) {
+            blackhole.consume(users.getRow());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void userRowMapper(Blackhole blackhole) throws SQLException {
+        users.beforeFirst();
+        while (users.next()) {
+            blackhole.consume(userRowMapper.mapRow(users, users.getRow()));
+        }
+    }
+}
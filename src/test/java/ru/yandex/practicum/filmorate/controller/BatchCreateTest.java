@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.dal.RatingStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BatchItemResult;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehind;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchCreateTest {
+
+    @Test
+    void testItemFailingWithoutMessageIsReportedAsFailed() {
+        UserStorage userStorage = mock(UserStorage.class);
+        when(userStorage.addAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(userStorage.add(any())).thenThrow(new NullPointerException());
+        UserService service = new UserService(userStorage, 500);
+
+        List<BatchItemResult<User>> results = service.createAll(List.of(User.builder()
+                .login("login")
+                .email("a@abc.com")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()));
+
+        assertFalse(results.getFirst().isCreated());
+        assertNull(results.getFirst().getItem());
+        assertEquals("NullPointerException", results.getFirst().getError());
+    }
+
+    @Test
+    void testFilmsWhoseGenresFailAreReportedAsFailed() {
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        RatingStorage ratingStorage = mock(RatingStorage.class);
+        when(ratingStorage.containsRating(anyInt())).thenReturn(true);
+        when(genreStorage.containsGenre(anyInt())).thenReturn(true);
+        int[] nextId = {1};
+        doAnswer(invocation -> {
+            List<Film> films = invocation.getArgument(0);
+            films.forEach(film -> film.setId(nextId[0]++));
+            return films;
+        }).when(filmStorage).addAll(anyList());
+        doAnswer(invocation -> {
+            Film film = invocation.getArgument(0);
+            film.setId(nextId[0]++);
+            return film;
+        }).when(filmStorage).add(any());
+        doThrow(new DataIntegrityViolationException("genre batch failed"))
+                .when(genreStorage).addGenresOfFilms(anyList());
+        Film withGenre = film("With genre", new LinkedHashSet<>(List.of(Genre.of(1, "Комедия"))));
+        doThrow(new DataIntegrityViolationException("genre failed"))
+                .when(genreStorage).addGenresOfFilm(withGenre);
+        FilmService service = new FilmService(filmStorage, mock(UserStorage.class), ratingStorage, genreStorage,
+                mock(LikeWriteBehind.class), new ContentVersions(), 500,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        Film withoutGenres = film("Without genres", new LinkedHashSet<>());
+        List<BatchItemResult<Film>> results = service.createAll(List.of(withGenre, withoutGenres));
+
+        assertFalse(results.get(0).isCreated());
+        assertEquals("genre failed", results.get(0).getError());
+        assertEquals(0, withGenre.getId());
+        assertTrue(results.get(1).isCreated());
+        assertEquals(4, results.get(1).getItem().getId());
+        verify(filmStorage).forgetFilm(1);
+        verify(filmStorage).forgetFilm(2);
+        verify(filmStorage).forgetFilm(3);
+        verify(filmStorage, never()).remove(anyInt());
+    }
+
+    private static Film film(String name, LinkedHashSet<Genre> genres) {
+        return Film.builder()
+                .name(name)
+                .description(name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .mpa(MpaRating.of(1, "G"))
+                .genres(genres)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContentVersionsTest {
+
+    @Test
+    void testVersionsChangeOnlyWithTheirContent() {
+        ContentVersions versions = new ContentVersions();
+        String film = versions.film(1).etag();
+        String otherFilm = versions.film(2).etag();
+        String genres = versions.genres().etag();
+        String popular = versions.popular().etag();
+
+        versions.likesChanged();
+        assertEquals(film, versions.film(1).etag());
+        assertEquals(genres, versions.genres().etag());
+        assertNotEquals(popular, versions.popular().etag());
+
+        versions.filmChanged(1);
+        assertNotEquals(film, versions.film(1).etag());
+        assertEquals(otherFilm, versions.film(2).etag());
+
+        String changedFilm = versions.film(1).etag();
+        versions.referenceDataChanged();
+        assertNotEquals(changedFilm, versions.film(1).etag());
+        assertNotEquals(otherFilm, versions.film(2).etag());
+        assertNotEquals(genres, versions.genres().etag());
+    }
+
+    @Test
+    void testMissingFilmIsNeverNotModified() {
+        ContentVersions versions = new ContentVersions();
+        FilmService service = mock(FilmService.class);
+        Film film = Film.builder().id(1).build();
+        when(service.findFilmById(1)).thenReturn(film);
+        doThrow(new NotFoundException("missing")).when(service).checkFilmExists(2);
+        FilmController controller = new FilmController(service, null, null, null, null, null, versions, null);
+
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        MockHttpServletRequest staleRequest = new MockHttpServletRequest("GET", "/films/2");
+        staleRequest.addHeader(HttpHeaders.IF_NONE_MATCH, versions.film(2).etag());
+        assertThrows(NotFoundException.class,
+                () -> controller.getFilm(2, new ServletWebRequest(staleRequest, missing)));
+        assertNull(missing.getHeader(HttpHeaders.ETAG));
+        assertEquals(200, missing.getStatus());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertSame(film, controller.getFilm(1, new ServletWebRequest(new MockHttpServletRequest("GET", "/films/1"),
+                first)));
+        assertNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/films/1");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertNull(controller.getFilm(1, new ServletWebRequest(conditional, second)));
+        assertEquals(304, second.getStatus());
+    }
+}
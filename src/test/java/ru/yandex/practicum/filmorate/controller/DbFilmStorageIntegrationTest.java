@@ -1,5 +1,8 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,27 +12,44 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.dal.RatingStorage;
+import ru.yandex.practicum.filmorate.dal.UserStorage;
 import ru.yandex.practicum.filmorate.dal.impl.DbFilmStorage;
 import ru.yandex.practicum.filmorate.dal.impl.DbGenreStorage;
 import ru.yandex.practicum.filmorate.dal.impl.DbRatingStorage;
 import ru.yandex.practicum.filmorate.dal.impl.DbUserStorage;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmJsonRowWriter;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.RatingRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehind;
+import ru.yandex.practicum.filmorate.service.ReferenceDataEndpoint;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 
 @JdbcTest
 @Import({DbFilmStorage.class, DbGenreStorage.class, DbRatingStorage.class,
@@ -75,6 +95,35 @@ class DbFilmStorageIntegrationTest {
         assertEquals(film.getName(), addedFilm.getName());
     }
 
+    @Test
+    void testAddAllFilms() {
+        Film other = newFilm("Other");
+        other.setGenres(new LinkedHashSet<>(List.of(Genre.builder().id(3).build())));
+
+        List<Film> added = filmStorage.addAll(List.of(film, other));
+        new DbGenreStorage(template, new GenreRowMapper()).addGenresOfFilms(added);
+
+        assertEquals(2, filmStorage.findAllFilms().size());
+        assertTrue(added.get(0).getId() < added.get(1).getId());
+        assertTrue(filmStorage.containsFilm(other.getId()));
+        assertEquals(Optional.of("Other"), filmStorage.findFilmById(other.getId()).map(Film::getName));
+        assertEquals(1, template.queryForObject(
+                "SELECT COUNT(*) FROM films_genres WHERE film_id = ?", Integer.class, other.getId()));
+    }
+
+    @Test
+    void testLoadedFilmsShareRatingInstances() {
+        Film sameRating = newFilm("Same rating");
+        sameRating.setMpa(MpaRating.builder().id(film.getMpa().getId()).build());
+        filmStorage.addAll(List.of(film, sameRating));
+
+        List<Film> loaded = filmStorage.findAllFilms();
+
+        assertEquals(2, loaded.size());
+        assertSame(loaded.get(0).getMpa(), loaded.get(1).getMpa());
+        assertEquals(MpaRating.of(2, "PG"), loaded.get(0).getMpa());
+    }
+
     @Test
     void testUpdateFilm() {
         filmStorage.add(film);
@@ -94,19 +143,23 @@ class DbFilmStorageIntegrationTest {
         assertFalse(filmStorage.containsFilm(addedFilm.getId() + 1));
     }
 
+    @Test
+    void testForgetFilmKeepsTheRow() {
+        Film addedFilm = filmStorage.add(film);
+
+        filmStorage.forgetFilm(addedFilm.getId());
+
+        assertFalse(filmStorage.containsFilm(addedFilm.getId()));
+        assertTrue(filmStorage.autocomplete("name", 5).isEmpty());
+        assertEquals(1, filmStorage.findAllFilms().size());
+    }
+
     @Test
     void testLikes() {
-        UserRowMapper userRowMapper = new UserRowMapper();
         Film addedFilm = filmStorage.add(film);
-        DbUserStorage userStorage = new DbUserStorage(template, userRowMapper);
+        DbUserStorage userStorage = new DbUserStorage(template, new UserRowMapper());
 
-        User user = User.builder()
-                .name("Name")
-                .login("Login")
-                .email("a@abc.com")
-                .birthday(LocalDate.of(1990, 12, 14))
-                .build();
-        User addedUser = userStorage.add(user);
+        User addedUser = userStorage.add(newUser("Login"));
         filmStorage.addLike(addedFilm.getId(), addedUser.getId());
 
         List<Integer> likes = filmStorage.getLikesByFilmId(addedFilm.getId());
@@ -115,6 +168,167 @@ class DbFilmStorageIntegrationTest {
         assertEquals(addedUser.getId(), likes.getFirst());
     }
 
+    @Test
+    void testLeaderboardMatchesLikeCounts() {
+        DbUserStorage userStorage = new DbUserStorage(template, new UserRowMapper());
+        User user = userStorage.add(newUser("Login"));
+        Film first = filmStorage.add(film);
+        Film second = filmStorage.add(newFilm("Other"));
+
+        FilmLeaderboard leaderboard = new FilmLeaderboard();
+        leaderboard.rebuild(filmStorage.getLikeCounts());
+        filmStorage.addLike(second.getId(), user.getId());
+        leaderboard.like(second.getId());
+
+        assertEquals(List.of(second.getId(), first.getId()), leaderboard.top(10));
+        assertTrue(leaderboard.findMismatches(filmStorage.getLikeCounts()).isEmpty());
+
+        assertTrue(filmStorage.removeLike(second.getId(), user.getId()));
+        assertTrue(leaderboard.findMismatches(filmStorage.getLikeCounts()).contains(second.getId()));
+        userStorage.removeAll();
+    }
+
+    @Test
+    void testConsistencyCheckRepairsPersistentDrift() {
+        DbUserStorage userStorage = new DbUserStorage(template, new UserRowMapper());
+        User user = userStorage.add(newUser("Login"));
+        Film addedFilm = filmStorage.add(film);
+        filmStorage.addLike(addedFilm.getId(), user.getId());
+        FilmService service = new FilmService(filmStorage, userStorage, mock(RatingStorage.class),
+                mock(GenreStorage.class), mock(LikeWriteBehind.class), new ContentVersions(), 500, null);
+        service.loadLikes();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+        template.update("DELETE FROM film_likes");
+
+        assertEquals(List.of(addedFilm.getId()), service.checkLeaderboardConsistency());
+        assertEquals(1, filmStorage.getLikeCounts().get(addedFilm.getId()));
+        assertEquals(List.of(addedFilm.getId()), service.checkLeaderboardConsistency());
+        assertEquals(0, filmStorage.getLikeCounts().get(addedFilm.getId()));
+        assertEquals(1.0, registry.get("filmorate.leaderboard.repairs").functionCounter().count());
+
+        assertTrue(service.checkLeaderboardConsistency().isEmpty());
+        assertEquals(0.0, registry.get("filmorate.leaderboard.mismatches").gauge().value());
+        userStorage.removeAll();
+    }
+
+    @Test
+    void testLikeTallyComparesColumnWithFilmLikes() {
+        DbUserStorage userStorage = new DbUserStorage(template, new UserRowMapper());
+        User user = userStorage.add(newUser("Login"));
+        Film unliked = filmStorage.add(film);
+        Film liked = filmStorage.add(newFilm("Other"));
+        filmStorage.addLike(liked.getId(), user.getId());
+        template.update("UPDATE films SET like_count = 5 WHERE film_id = ?", liked.getId());
+
+        Map<Integer, int[]> tallies = new HashMap<>();
+        filmStorage.forEachLikeTally((filmId, likeCount, filmLikes) ->
+                tallies.put(filmId, new int[]{likeCount, filmLikes}));
+
+        assertArrayEquals(new int[]{0, 0}, tallies.get(unliked.getId()));
+        assertArrayEquals(new int[]{5, 1}, tallies.get(liked.getId()));
+        userStorage.removeAll();
+    }
+
+    @Test
+    void testLikeCountFollowsLikes() {
+        DbUserStorage userStorage = new DbUserStorage(template, new UserRowMapper());
+        User user = userStorage.add(newUser("Login"));
+        Film unliked = filmStorage.add(film);
+        Film liked = filmStorage.add(newFilm("Other"));
+        template.update("INSERT INTO films_genres (film_id, genre_id) VALUES (?, 1), (?, 2)",
+                liked.getId(), liked.getId());
+        filmStorage.addLike(liked.getId(), user.getId());
+
+        assertEquals(0, filmStorage.getLikeCounts().get(unliked.getId()));
+        assertEquals(1, filmStorage.getLikeCounts().get(liked.getId()));
+
+        filmStorage.removeLike(liked.getId(), user.getId());
+        assertEquals(0, filmStorage.getLikeCounts().get(liked.getId()));
+        userStorage.removeAll();
+    }
+
+    @Test
+    void testFindGenresForFilms() {
+        DbGenreStorage genreStorage = new DbGenreStorage(template, new GenreRowMapper());
+        Film withGenres = filmStorage.add(film);
+        withGenres.setGenres(new LinkedHashSet<>(List.of(Genre.builder().id(3).build(),
+                Genre.builder().id(1).build())));
+        genreStorage.addGenresOfFilm(withGenres);
+        Film withoutGenres = filmStorage.add(newFilm("Other"));
+
+        Map<Integer, LinkedHashSet<Genre>> genresByFilm =
+                genreStorage.findGenresForFilms(List.of(withGenres.getId(), withoutGenres.getId()));
+
+        assertEquals(List.of(1, 3), genresByFilm.get(withGenres.getId()).stream().map(Genre::getId).toList());
+        assertFalse(genresByFilm.containsKey(withoutGenres.getId()));
+    }
+
+    @Test
+    void testGenresMissingFromTheSnapshotAreSkipped() {
+        DbGenreStorage genreStorage = new DbGenreStorage(template, new GenreRowMapper()) {
+            private boolean loaded;
+
+            @Override
+            public void refresh() {
+                if (!loaded) {
+                    super.refresh();
+                    loaded = true;
+                }
+            }
+        };
+        genreStorage.refresh();
+        Film withGenres = filmStorage.add(film);
+        int genreId = addGenre("Вестерн");
+        template.update("INSERT INTO films_genres (film_id, genre_id) VALUES (?, 1), (?, ?)",
+                withGenres.getId(), withGenres.getId(), genreId);
+
+        assertEquals(List.of(1), genreStorage.findGenresForFilms(List.of(withGenres.getId()))
+                .get(withGenres.getId()).stream().map(Genre::getId).toList());
+        assertEquals(List.of(1), genreStorage.findGenresForFilm(withGenres.getId()).stream()
+                .map(Genre::getId).toList());
+    }
+
+    @Test
+    void testReferenceDataEndpointReloadsEditedTables() {
+        DbGenreStorage genreStorage = new DbGenreStorage(template, new GenreRowMapper());
+        genreStorage.refresh();
+        ContentVersions versions = new ContentVersions();
+        FilmService service = new FilmService(filmStorage, mock(UserStorage.class), mock(RatingStorage.class),
+                genreStorage, mock(LikeWriteBehind.class), versions, 500, null);
+        ReferenceDataEndpoint endpoint = new ReferenceDataEndpoint(service);
+        int genres = endpoint.counts().get("genres");
+        String etag = versions.genres().etag();
+        addGenre("Вестерн");
+
+        assertEquals(genres, endpoint.counts().get("genres"));
+        assertEquals(genres + 1, endpoint.refresh().get("genres"));
+        assertTrue(service.getGenres().stream().anyMatch(genre -> genre.getName().equals("Вестерн")));
+        assertFalse(etag.equals(versions.genres().etag()));
+    }
+
+    @Test
+    void testStreamFilmsAsNdjson() throws Exception {
+        Film withGenres = filmStorage.add(film);
+        template.update("INSERT INTO films_genres (film_id, genre_id) VALUES (?, 2), (?, 1)",
+                withGenres.getId(), withGenres.getId());
+        Film withoutGenres = filmStorage.add(newFilm("Other"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(out)) {
+            FilmJsonRowWriter writer = new FilmJsonRowWriter(generator);
+            filmStorage.streamFilms(writer);
+            writer.finish();
+        }
+
+        assertEquals("{\"id\":" + withGenres.getId() + ",\"name\":\"Name\",\"description\":\"Login\"," +
+                "\"mpa\":{\"id\":2,\"name\":\"PG\"},\"releaseDate\":\"1980-10-01\",\"duration\":150," +
+                "\"genres\":[{\"id\":1,\"name\":\"Комедия\"},{\"id\":2,\"name\":\"Драма\"}]}\n" +
+                "{\"id\":" + withoutGenres.getId() + ",\"name\":\"Other\",\"description\":\"Other\"," +
+                "\"mpa\":{\"id\":1,\"name\":\"G\"},\"releaseDate\":\"2000-01-01\",\"duration\":90," +
+                "\"genres\":[]}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     void testFindFilmById() {
         Film addedFilm = filmStorage.add(film);
@@ -137,4 +351,30 @@ class DbFilmStorageIntegrationTest {
 
         assertTrue(filmStorage.findAllFilms().isEmpty());
     }
+
+    private static Film newFilm(String name) {
+        return Film.builder()
+                .name(name)
+                .description(name)
+                .duration(90L)
+                .mpa(MpaRating.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .genres(new LinkedHashSet<>())
+                .build();
+    }
+
+    private static User newUser(String login) {
+        return User.builder()
+                .name(login)
+                .login(login)
+                .email(login + "@abc.com")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private int addGenre(String name) {
+        int genreId = template.queryForObject("SELECT MAX(genre_id) + 1 FROM genres", Integer.class);
+        template.update("INSERT INTO genres (genre_id, genre) VALUES (?, ?)", genreId, name);
+        return genreId;
+    }
 }
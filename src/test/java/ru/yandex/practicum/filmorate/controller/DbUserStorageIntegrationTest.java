@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,17 +10,24 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.IdIndexMetrics;
+import ru.yandex.practicum.filmorate.dal.IdIndexMismatches;
 import ru.yandex.practicum.filmorate.dal.impl.DbUserStorage;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utils.PrefixIndex;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 
 @JdbcTest
 @Import({DbUserStorage.class, UserRowMapper.class})
@@ -38,12 +46,7 @@ class DbUserStorageIntegrationTest {
     void setUp() {
         UserRowMapper userRowMapper = new UserRowMapper();
         storage = new DbUserStorage(template, userRowMapper);
-        user = User.builder()
-                .name("Name")
-                .login("Login")
-                .email("a@abc.com")
-                .birthday(LocalDate.of(1980, 10, 1))
-                .build();
+        user = newUser("Name", "Login");
     }
 
     @AfterEach
@@ -80,6 +83,124 @@ class DbUserStorageIntegrationTest {
         assertFalse(storage.contains(addedUser.getId() + 1));
     }
 
+    @Test
+    void testIdIndexRepairsMismatch() {
+        User addedUser = storage.add(user);
+        template.update("DELETE FROM users WHERE user_id = ?", addedUser.getId());
+
+        assertTrue(storage.contains(addedUser.getId()));
+        assertTrue(storage.findById(addedUser.getId()).isEmpty());
+        assertFalse(storage.contains(addedUser.getId()));
+        assertEquals(new IdIndexMismatches(1, 0), storage.getIdIndexMismatches());
+    }
+
+    @Test
+    void testIdIndexCountsIdsMissingFromIt() {
+        storage.add(user);
+        template.update("INSERT INTO users (name, login, email, birthday) VALUES ('Ghost', 'ghost', 'g@abc.com', ?)",
+                LocalDate.of(1990, 1, 1));
+        int ghostId = template.queryForObject("SELECT user_id FROM users WHERE login = 'ghost'", Integer.class);
+        assertFalse(storage.contains(ghostId));
+
+        User ghost = storage.findByIds(new int[]{ghostId}).getFirst();
+        assertTrue(storage.contains(ghostId));
+        ghost.setName("Ghost 2");
+        storage.update(ghost);
+
+        assertEquals(new IdIndexMismatches(0, 1), storage.getIdIndexMismatches());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new IdIndexMetrics(mock(FilmStorage.class, invocation -> new IdIndexMismatches(0, 0)), storage)
+                .bindTo(registry);
+        assertEquals(1.0, registry.get("filmorate.id_index.mismatches")
+                .tags("entity", "user", "kind", "missing").functionCounter().count());
+        assertEquals(0.0, registry.get("filmorate.id_index.mismatches")
+                .tags("entity", "film", "kind", "stale").functionCounter().count());
+    }
+
+    @Test
+    void testFindPage() {
+        User first = storage.add(user);
+        User second = storage.add(newUser("Other"));
+
+        assertEquals(List.of(first.getId()), storage.findPage(0, 1).stream().map(User::getId).toList());
+        assertEquals(List.of(second.getId()),
+                storage.findPage(first.getId(), 10).stream().map(User::getId).toList());
+        assertTrue(storage.findPage(second.getId(), 10).isEmpty());
+    }
+
+    @Test
+    void testCommonFriends() {
+        List<User> users = storage.addAll(List.of(user, newUser("B"), newUser("C"), newUser("D")));
+        int a = users.get(0).getId();
+        int b = users.get(1).getId();
+        int c = users.get(2).getId();
+        int d = users.get(3).getId();
+        storage.addFriendship(a, c);
+        storage.addFriendship(a, d);
+        storage.addFriendship(b, d);
+        template.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", b, c);
+        storage.loadIndexes();
+
+        assertEquals(List.of(c, d), storage.getFriendsbyUserId(a).stream().map(User::getId).toList());
+        assertEquals(List.of(c, d), storage.getCommonFriends(a, b).stream().map(User::getId).toList());
+
+        storage.removeFriendship(b, c);
+
+        assertFalse(storage.isFriend(b, c));
+        assertEquals(List.of(d), storage.getCommonFriends(a, b).stream().map(User::getId).toList());
+        assertTrue(storage.getCommonFriends(a, c).isEmpty());
+    }
+
+    @Test
+    void testRolledBackFriendshipsLeaveIndexUnchanged() {
+        List<User> users = storage.addAll(List.of(user, newUser("b"), newUser("c")));
+        int a = users.get(0).getId();
+        int b = users.get(1).getId();
+        int c = users.get(2).getId();
+        storage.addFriendship(a, c);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        TestTransaction.start();
+        storage.addFriendship(a, b);
+        storage.removeFriendship(a, c);
+        assertTrue(storage.isFriend(a, b));
+        assertFalse(storage.isFriend(a, c));
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertFalse(storage.isFriend(a, b));
+        assertTrue(storage.isFriend(a, c));
+        assertEquals(List.of(new PrefixIndex.Completion(a, user.getLogin(), 1)), storage.autocomplete("login", 5));
+    }
+
+    @Test
+    void testAutocompleteRanksByFriendCountAndFollowsUpdates() {
+        List<User> users = storage.addAll(List.of(user,
+                newUser("Лена", "lenka"), newUser("Лёша", "alex"), newUser("Leo", "leo")));
+        int lenka = users.get(1).getId();
+        int alex = users.get(2).getId();
+        int leo = users.get(3).getId();
+        storage.addFriendship(leo, lenka);
+        storage.addFriendship(leo, alex);
+        storage.addFriendship(lenka, alex);
+
+        assertEquals(List.of(leo, lenka), completedIds("LE"));
+        assertEquals(List.of(lenka, alex), completedIds("ле"));
+
+        storage.loadIndexes();
+        assertEquals(List.of(leo, lenka), completedIds("le"));
+
+        storage.removeFriendship(leo, alex);
+        storage.removeFriendship(leo, lenka);
+        user.setLogin("leader");
+        storage.update(user);
+        assertEquals(List.of(lenka, user.getId(), leo), completedIds("le"));
+        assertEquals(List.of(lenka), storage.autocomplete("le", 1).stream()
+                .map(PrefixIndex.Completion::id).toList());
+        assertTrue(completedIds("login").isEmpty());
+    }
+
     @Test
     void testFindUserById() {
         User addedUser = storage.add(user);
@@ -102,4 +223,21 @@ class DbUserStorageIntegrationTest {
 
         assertTrue(storage.findAll().isEmpty());
     }
+
+    private List<Integer> completedIds(String prefix) {
+        return storage.autocomplete(prefix, 10).stream().map(PrefixIndex.Completion::id).toList();
+    }
+
+    private static User newUser(String login) {
+        return newUser(login, login);
+    }
+
+    private static User newUser(String name, String login) {
+        return User.builder()
+                .name(name)
+                .login(login)
+                .email(login + "@abc.com")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
 }
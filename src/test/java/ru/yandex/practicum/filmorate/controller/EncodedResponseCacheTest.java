@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseCacheTest {
+
+    private final ContentVersions versions = new ContentVersions();
+
+    @Test
+    void testEvictsLeastRecentlyUsedKeys() {
+        EncodedResponseCache cache = new EncodedResponseCache(new ObjectMapper(), true, true, 2);
+        AtomicInteger encoded = new AtomicInteger();
+
+        get(cache, "hot", encoded, null);
+        get(cache, "cold", encoded, null);
+        get(cache, "hot", encoded, null);
+        get(cache, "new", encoded, null);
+        get(cache, "hot", encoded, null);
+        assertEquals(3, encoded.get());
+        assertEquals(2, cache.size());
+
+        get(cache, "cold", encoded, null);
+        assertEquals(4, encoded.get());
+    }
+
+    @Test
+    void testGzipVariantHasItsOwnEtag() {
+        EncodedResponseCache cache = new EncodedResponseCache(new ObjectMapper(), true, true, 2);
+        AtomicInteger encoded = new AtomicInteger();
+
+        MockHttpServletResponse identity = get(cache, "genres", encoded, null);
+        MockHttpServletResponse gzipped = get(cache, "genres", encoded, "br, gzip;q=0.5");
+        assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(identity.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/genres");
+        conditional.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, identity.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<byte[]> entity = cache.get("genres", versions.genres(),
+                new ServletWebRequest(conditional, response), () -> body(encoded));
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testParsesAcceptEncodingQualities() {
+        assertTrue(EncodedResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(EncodedResponseCache.acceptsGzip("br;q=1.0, GZIP;q=0.1"));
+        assertTrue(EncodedResponseCache.acceptsGzip("*"));
+        assertFalse(EncodedResponseCache.acceptsGzip("gzip;q=0"));
+        assertFalse(EncodedResponseCache.acceptsGzip("*, gzip;q=0.0"));
+        assertFalse(EncodedResponseCache.acceptsGzip("x-gzipped, identity"));
+        assertFalse(EncodedResponseCache.acceptsGzip(null));
+    }
+
+    private MockHttpServletResponse get(EncodedResponseCache cache, String key, AtomicInteger encoded,
+                                        String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + key);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<byte[]> entity = cache.get(key, versions.genres(), new ServletWebRequest(request, response),
+                () -> body(encoded));
+        entity.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        return response;
+    }
+
+    private static List<String> body(AtomicInteger encoded) {
+        encoded.incrementAndGet();
+        return Collections.nCopies(200, "Комедия");
+    }
+}
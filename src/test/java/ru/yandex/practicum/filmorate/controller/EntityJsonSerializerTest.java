@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.controller.mappers.FilmMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.GenreMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.MpaRatingMapper;
+import ru.yandex.practicum.filmorate.controller.mappers.UserMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The direct serializers must keep the JSON the DTOs produced: every case is checked against a
+ * golden string and against the mapper-and-DTO path.
+ */
+@JsonTest
+@Import({FilmMapper.class, GenreMapper.class, MpaRatingMapper.class, UserMapper.class})
+class EntityJsonSerializerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FilmMapper filmMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Test
+    void testFilmJsonMatchesDtoJson() throws Exception {
+        Film film = Film.builder()
+                .id(7)
+                .name("Ёлки")
+                .description("Новогодняя \"комедия\"\n")
+                .mpa(MpaRating.of(1, "G"))
+                .releaseDate(LocalDate.of(2010, 12, 16))
+                .duration(90)
+                .genres(new LinkedHashSet<>(List.of(Genre.of(1, "Комедия"), Genre.of(2, "Драма"))))
+                .build();
+        Film bare = Film.builder()
+                .id(8)
+                .name("Bare")
+                .mpa(MpaRating.of(5, "NC-17"))
+                .releaseDate(LocalDate.of(1895, 12, 28))
+                .duration(1)
+                .build();
+
+        assertGolden("{\"id\":7,\"name\":\"Ёлки\",\"description\":\"Новогодняя \\\"комедия\\\"\\n\","
+                + "\"mpa\":{\"id\":1,\"name\":\"G\"},\"releaseDate\":\"2010-12-16\",\"duration\":90,"
+                + "\"genres\":[{\"id\":1,\"name\":\"Комедия\"},{\"id\":2,\"name\":\"Драма\"}]}",
+                film, filmMapper.map(film));
+        assertGolden("{\"id\":8,\"name\":\"Bare\",\"description\":null,\"mpa\":{\"id\":5,\"name\":\"NC-17\"},"
+                + "\"releaseDate\":\"1895-12-28\",\"duration\":1,\"genres\":[]}",
+                bare, filmMapper.map(bare));
+        assertGolden("[" + objectMapper.writeValueAsString(filmMapper.map(film)) + ","
+                + objectMapper.writeValueAsString(filmMapper.map(bare)) + "]",
+                List.of(film, bare), List.of(filmMapper.map(film), filmMapper.map(bare)));
+    }
+
+    @Test
+    void testUserJsonMatchesDtoJson() throws Exception {
+        User user = User.builder()
+                .id(3)
+                .name("Лёша")
+                .login("alex")
+                .email("alex@example.com")
+                .birthday(LocalDate.of(1986, 6, 6))
+                .build();
+        User unsaved = User.builder()
+                .login("nobody")
+                .email("nobody@example.com")
+                .build();
+
+        assertGolden("{\"id\":3,\"name\":\"Лёша\",\"login\":\"alex\",\"email\":\"alex@example.com\","
+                + "\"birthday\":\"1986-06-06\"}", user, userMapper.map(user));
+        assertGolden("{\"id\":null,\"name\":null,\"login\":\"nobody\",\"email\":\"nobody@example.com\","
+                + "\"birthday\":null}", unsaved, userMapper.map(unsaved));
+    }
+
+    private void assertGolden(String golden, Object entity, Object dto) throws Exception {
+        assertEquals(golden, objectMapper.writeValueAsString(dto));
+        assertEquals(golden, objectMapper.writeValueAsString(entity));
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FilmLeaderboard;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmLeaderboardTest {
+
+    @Test
+    void testTopByGenreAndYearFollowsLikesAndMoves() {
+        FilmLeaderboard leaderboard = new FilmLeaderboard();
+        leaderboard.rebuild(Map.of(1, 5, 2, 3, 3, 1),
+                Map.of(1, 2000, 2, 2000, 3, 1999),
+                Map.of(1, List.of(1), 2, List.of(1, 2), 3, List.of(2)));
+
+        assertEquals(List.of(1, 2), leaderboard.top(10, 1, null));
+        assertEquals(List.of(2, 3), leaderboard.top(10, 2, null));
+        assertEquals(List.of(1, 2), leaderboard.top(10, null, 2000));
+        assertEquals(List.of(2), leaderboard.top(10, 2, 2000));
+        assertEquals(List.of(), leaderboard.top(10, 3, null));
+
+        leaderboard.like(3);
+        leaderboard.like(3);
+        leaderboard.like(3);
+        assertEquals(List.of(3, 2), leaderboard.top(10, 2, null));
+
+        leaderboard.setReleaseYear(2, 1999);
+        leaderboard.addGenres(1, List.of(2));
+        assertEquals(List.of(1), leaderboard.top(10, null, 2000));
+        assertEquals(List.of(1), leaderboard.top(10, 2, 2000));
+        assertEquals(List.of(3, 2), leaderboard.top(10, 2, 1999));
+        assertEquals(List.of(1, 3), leaderboard.top(2, 2, null));
+
+        leaderboard.addFilm(4);
+        leaderboard.setReleaseYear(4, 2000);
+        assertEquals(List.of(1, 4), leaderboard.top(10, null, 2000));
+    }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.h2.tools.SimpleResultSet;
+import org.h2.tools.SimpleRowSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.impl.DbFilmStorage;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmJsonRowWriter;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+
+import java.io.OutputStream;
+import java.sql.Date;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap checks over millions of exported rows; slow and GC-sensitive, so they only run with
+ * {@code mvn test -P memorytest}.
+ */
+@Tag("memory")
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmNdjsonExportTest {
+
+    private static final int ROWS = 1_000_000;
+
+    private static final int DB_FILMS = 300_000;
+
+    @Autowired
+    private final JdbcTemplate template;
+
+    private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+
+    @Test
+    void testExportKeepsHeapFlat() throws Exception {
+        long[] usedHeap = new long[2];
+        SimpleResultSet resultSet = new SimpleResultSet(new SimpleRowSource() {
+            private int row;
+
+            @Override
+            public Object[] readRow() {
+                if (row == ROWS / 10) {
+                    usedHeap[0] = usedHeapAfterGc();
+                } else if (row == ROWS - ROWS / 10) {
+                    usedHeap[1] = usedHeapAfterGc();
+                } else if (row == ROWS) {
+                    return null;
+                }
+                row++;
+                return new Object[]{row, "Film " + row, "Description of film " + row, Date.valueOf("2000-01-01"),
+                        120L, 1, "G", 1 + row % 6, "Комедия"};
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void reset() {
+            }
+        });
+        resultSet.addColumn("film_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("film_name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("description", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("release_date", Types.DATE, 10, 0);
+        resultSet.addColumn("duration", Types.BIGINT, 19, 0);
+        resultSet.addColumn("rating_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("rating_name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("genre_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("genre_name", Types.VARCHAR, 255, 0);
+
+        LineCountingOutputStream out = new LineCountingOutputStream();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(out)) {
+            FilmJsonRowWriter writer = new FilmJsonRowWriter(generator);
+            while (resultSet.next()) {
+                writer.processRow(resultSet);
+            }
+            writer.finish();
+        }
+
+        assertEquals(ROWS, out.lines);
+        assertTrue(usedHeap[1] - usedHeap[0] < MAX_HEAP_GROWTH,
+                "Heap grew by " + (usedHeap[1] - usedHeap[0]) + " bytes while streaming");
+    }
+
+    @Test
+    void testExportFromDatabaseKeepsHeapFlat() throws Exception {
+        template.update("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) "
+                + "SELECT 'Film ' || X, 'Description of film ' || X, DATE '2000-01-01', 120, 1 + MOD(X, 5) "
+                + "FROM SYSTEM_RANGE(1, ?)", DB_FILMS);
+        template.update("INSERT INTO films_genres (film_id, genre_id) "
+                + "SELECT film_id, 1 + MOD(film_id, 6) FROM films");
+        DbFilmStorage filmStorage = new DbFilmStorage(template, new FilmRowMapper());
+
+        long[] usedHeap = new long[2];
+        LineCountingOutputStream out = new LineCountingOutputStream();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(out)) {
+            FilmJsonRowWriter writer = new FilmJsonRowWriter(generator);
+            int[] rows = new int[1];
+            filmStorage.streamFilms(resultSet -> {
+                rows[0]++;
+                if (rows[0] == DB_FILMS / 10) {
+                    usedHeap[0] = usedHeapAfterGc();
+                } else if (rows[0] == DB_FILMS - DB_FILMS / 10) {
+                    usedHeap[1] = usedHeapAfterGc();
+                }
+                writer.processRow(resultSet);
+            });
+            writer.finish();
+        }
+
+        assertEquals(DB_FILMS, out.lines);
+        assertTrue(usedHeap[1] - usedHeap[0] < MAX_HEAP_GROWTH,
+                "Heap grew by " + (usedHeap[1] - usedHeap[0]) + " bytes while streaming from the database");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FilmRecommender;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmRecommenderTest {
+
+    // (user, film), ordered by user and then film
+    private static final int[][] LIKES = {
+            {1, 10}, {1, 11}, {1, 12},
+            {2, 10}, {2, 11},
+            {3, 10}, {3, 13},
+            {4, 11}, {4, 12}, {4, 14}
+    };
+
+    @Test
+    void testRecommendsCoLikedFilmsExceptLikedOnes() {
+        FilmRecommender recommender = new FilmRecommender();
+        recommender.rebuild(consumer -> {
+            for (int[] like : LIKES) {
+                consumer.accept(like[0], like[1]);
+            }
+        });
+
+        assertArrayEquals(new int[]{12, 13, 14}, recommender.recommend(2, 10));
+        assertArrayEquals(new int[]{12}, recommender.recommend(2, 1));
+        assertArrayEquals(new int[0], recommender.recommend(5, 10));
+
+        recommender.unlike(12, 4);
+        recommender.unlike(12, 1);
+        recommender.like(10, 4);
+
+        assertArrayEquals(new int[]{14, 13}, recommender.recommend(2, 10));
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        Random random = new Random(3);
+        int[][] likes = random.ints(2_000, 0, 200 * 50)
+                .distinct()
+                .sorted()
+                .mapToObj(pair -> new int[]{pair / 50, pair % 50})
+                .toArray(int[][]::new);
+
+        FilmRecommender rebuilt = new FilmRecommender(1000);
+        rebuilt.rebuild(consumer -> {
+            for (int[] like : likes) {
+                consumer.accept(like[0], like[1]);
+            }
+        });
+        FilmRecommender incremental = new FilmRecommender(1000);
+        for (int i = likes.length - 1; i >= 0; i--) {
+            incremental.like(likes[i][1], likes[i][0]);
+        }
+        incremental.like(7, 1_000);
+        incremental.unlike(7, 1_000);
+
+        for (int user = 0; user < 200; user++) {
+            assertArrayEquals(rebuilt.recommend(user, 5), incremental.recommend(user, 5), "user " + user);
+        }
+        assertEquals(5, rebuilt.recommend(0, 5).length);
+    }
+}
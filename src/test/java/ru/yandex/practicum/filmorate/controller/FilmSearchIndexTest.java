@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FilmSearchIndexTest {
+
+    @Test
+    void testRanksCyrillicMatchesAndFollowsUpdates() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.put(1, "Ёлки", "Новогодняя комедия о чудесах");
+        index.put(2, "Ирония судьбы", "Новогодняя комедия, в которой герой попадает в Ленинград");
+        index.put(3, "Брат", "Драма о Петербурге девяностых");
+        index.put(4, "Елки-палки", "Комедия о ёлках и палках, ёлки, ёлки и снова ёлки");
+
+        assertArrayEquals(new int[]{4, 1}, index.search("ЕЛКИ", 10));
+        assertArrayEquals(new int[]{2, 1}, index.search("новогодняя ирония", 10));
+        assertArrayEquals(new int[]{4}, index.search("палки", 10));
+        assertArrayEquals(new int[0], index.search("вестерн", 10));
+        assertArrayEquals(new int[0], index.search("о и в", 10));
+
+        index.put(3, "Брат 2", "Продолжение: брат едет в Америку, вестерн по-русски");
+        assertArrayEquals(new int[]{3}, index.search("вестерн", 10));
+        assertArrayEquals(new int[0], index.search("девяностых", 10));
+
+        index.remove(4);
+        assertArrayEquals(new int[]{1}, index.search("елки", 10));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FriendSuggestions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FriendSuggestionsTest {
+
+    @Test
+    void testRanksByMutualFriendsThenId() {
+        int[][] graph = {
+                {1, 2, 3},
+                {4, 5},
+                {4, 5, 6},
+                {0, 4},
+                {},
+                {},
+                {}
+        };
+        FriendSuggestions suggestions = new FriendSuggestions(user -> graph[user]);
+
+        assertArrayEquals(new int[]{4, 5, 6}, suggestions.suggest(0, 10));
+        assertArrayEquals(new int[]{4}, suggestions.suggest(0, 1));
+        assertArrayEquals(new int[0], suggestions.suggest(4, 10));
+    }
+
+    @Test
+    void testParallelCountMatchesBruteForce() {
+        Random random = new Random(42);
+        int users = 20_000;
+        int[][] graph = new int[users][];
+        for (int user = 0; user < users; user++) {
+            graph[user] = random.ints(user == 0 ? 2_000 : 60, 0, users).distinct().sorted().toArray();
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        FriendSuggestions suggestions = new FriendSuggestions(user -> graph[user], pool);
+
+        Map<Integer, Integer> expectedCounts = new HashMap<>();
+        for (int friend : graph[0]) {
+            for (int candidate : graph[friend]) {
+                if (candidate != 0 && Arrays.binarySearch(graph[0], candidate) < 0) {
+                    expectedCounts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        int[] expected = expectedCounts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(50)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+
+        assertArrayEquals(expected, suggestions.suggest(0, 50));
+        assertArrayEquals(IntStream.of(expected).limit(5).toArray(), suggestions.suggest(0, 5));
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import ru.yandex.practicum.filmorate.controller.logging.HttpLogSampler;
+import ru.yandex.practicum.filmorate.controller.logging.HttpLogSink;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HttpLogSinkTest {
+
+    @Test
+    void testDropsEntriesWhenQueueIsFull() throws Exception {
+        HttpLogSink sink = new HttpLogSink(new ObjectMapper(), 4, 1);
+        Correlation correlation = mock(Correlation.class);
+        when(correlation.getId()).thenReturn("1");
+        when(correlation.getDuration()).thenReturn(Duration.ofMillis(3));
+        HttpRequest request = request("/films/1");
+        when(request.getBody()).thenReturn("{\"name\":\"Film\"}".getBytes(StandardCharsets.UTF_8));
+        when(request.getCharset()).thenReturn(StandardCharsets.UTF_8);
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getBody()).thenReturn(new byte[0]);
+
+        sink.write(correlation, request, response);
+        sink.write(correlation, request, response);
+        sink.write(correlation, request, response);
+
+        assertEquals(1, sink.getQueuedEntries());
+        assertEquals(2, sink.getDroppedEntries());
+    }
+
+    @Test
+    void testCutsBodiesByCharacters() {
+        byte[] cyrillic = "Фильмы".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(new HttpLogSink.Body(12, true, "Фильм"), HttpLogSink.Body.of(cyrillic, StandardCharsets.UTF_8, 5));
+        assertEquals(new HttpLogSink.Body(12, false, "Фильмы"),
+                HttpLogSink.Body.of(cyrillic, StandardCharsets.UTF_8, 6));
+        assertEquals(new HttpLogSink.Body(5, true, "a"),
+                HttpLogSink.Body.of("a😀".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, 2));
+    }
+
+    @Test
+    void testSamplesByPathRules() {
+        HttpLogSampler sampler = new HttpLogSampler(List.of("/films/**", "/users/**"), List.of("/users/*/friends"),
+                0.0, List.of("/films/popular=0", "/films/**=1"));
+
+        assertTrue(sampler.test(request("/films/1")));
+        assertFalse(sampler.test(request("/films/popular")));
+        assertFalse(sampler.test(request("/users/1")));
+        assertFalse(sampler.test(request("/users/1/friends")));
+        assertFalse(sampler.test(request("/genres")));
+    }
+
+    private static HttpRequest request(String path) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getPath()).thenReturn(path);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getHeaders()).thenReturn(HttpHeaders.empty());
+        return request;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.impl.DbFilmStorage;
+import ru.yandex.practicum.filmorate.dal.impl.DbUserStorage;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehind;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class LikeWriteBehindIntegrationTest {
+
+    @Autowired
+    private final JdbcTemplate template;
+
+    @TempDir
+    private Path logDir;
+
+    private DbFilmStorage filmStorage;
+
+    private DbUserStorage userStorage;
+
+    private LikeWriteBehind writeBehind;
+
+    private int filmId;
+
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new DbFilmStorage(template, new FilmRowMapper());
+        userStorage = new DbUserStorage(template, new UserRowMapper());
+        filmId = filmStorage.add(Film.builder()
+                .name("Name")
+                .description("Description")
+                .duration(150L)
+                .mpa(MpaRating.builder().id(2).build())
+                .releaseDate(LocalDate.of(1980, 10, 1))
+                .genres(new LinkedHashSet<>())
+                .build()).getId();
+        userId = userStorage.add(User.builder()
+                .name("Name")
+                .login("Login")
+                .email("a@abc.com")
+                .birthday(LocalDate.of(1990, 12, 14))
+                .build()).getId();
+        writeBehind = startWriteBehind();
+    }
+
+    @AfterEach
+    void finish() {
+        writeBehind.stop();
+        filmStorage.removeAll();
+        userStorage.removeAll();
+    }
+
+    @Test
+    void testLikesReachDatabaseOnFlush() {
+        assertTrue(writeBehind.like(filmId, userId));
+        assertFalse(writeBehind.like(filmId, userId));
+        assertTrue(filmStorage.getLikesByFilmId(filmId).isEmpty());
+
+        writeBehind.flush();
+
+        assertEquals(1, filmStorage.getLikesByFilmId(filmId).size());
+        assertEquals(1, filmStorage.getLikeCounts().get(filmId));
+        assertEquals(0, writeBehind.pendingSize());
+        assertFalse(writeBehind.like(filmId, userId));
+    }
+
+    @Test
+    void testStoredLikesAreKnownWithoutQueryingThem() {
+        filmStorage.addLike(filmId, userId);
+        LikeWriteBehind restarted = startWriteBehind();
+        template.update("DELETE FROM film_likes");
+
+        assertFalse(restarted.like(filmId, userId));
+        assertTrue(restarted.unlike(filmId, userId));
+        assertEquals(1, restarted.pendingSize());
+        restarted.stop();
+    }
+
+    @Test
+    void testLikeAndUnlikeCancelOut() {
+        assertTrue(writeBehind.like(filmId, userId));
+        assertTrue(writeBehind.unlike(filmId, userId));
+        assertFalse(writeBehind.unlike(filmId, userId));
+
+        assertEquals(0, writeBehind.pendingSize());
+        writeBehind.flush();
+        assertTrue(filmStorage.getLikesByFilmId(filmId).isEmpty());
+    }
+
+    @Test
+    void testUnflushedLikesAreReplayedOnRestart() {
+        LikeWriteBehind crashed = startWriteBehind();
+        crashed.like(filmId, userId);
+
+        LikeWriteBehind restarted = startWriteBehind();
+
+        assertEquals(1, filmStorage.getLikesByFilmId(filmId).size());
+        assertEquals(1, filmStorage.getLikeCounts().get(filmId));
+        assertFalse(restarted.like(filmId, userId));
+        assertTrue(restarted.unlike(filmId, userId));
+        restarted.stop();
+        assertTrue(filmStorage.getLikesByFilmId(filmId).isEmpty());
+        assertEquals(0, filmStorage.getLikeCounts().get(filmId));
+    }
+
+    private LikeWriteBehind startWriteBehind() {
+        LikeWriteBehind likeWriteBehind = new LikeWriteBehind(filmStorage, true,
+                logDir.resolve("film-likes.log").toString(), 60_000, 5000, false);
+        likeWriteBehind.start();
+        return likeWriteBehind;
+    }
+}
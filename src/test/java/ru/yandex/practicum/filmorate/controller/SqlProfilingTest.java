@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.dal.profiling.ProfilingDataSource;
+import ru.yandex.practicum.filmorate.dal.profiling.SqlStats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlProfilingTest {
+
+    private EmbeddedDatabase database;
+
+    private SqlStats stats;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("sql-profiling-" + UUID.randomUUID())
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        stats = new SqlStats(60_000);
+        jdbcTemplate = new JdbcTemplate(new ProfilingDataSource(database, stats));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testAggregatesByNormalizedStatement() {
+        jdbcTemplate.queryForList("SELECT * FROM genres WHERE genre_id < 4");
+        jdbcTemplate.queryForList("SELECT  *  FROM genres WHERE genre_id < 10");
+        jdbcTemplate.queryForList("SELECT * FROM ratings WHERE rating_id IN (?, ?)", 1, 2);
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, login, email, birthday) VALUES (?, ?, ?, ?)",
+                List.of(new Object[]{"A", "a", "a@a.com", "2000-01-01"}, new Object[]{"B", "b", "b@b.com", "2000-01-01"}));
+
+        Map<String, SqlStats.StatementSnapshot> statements = stats.snapshot().stream()
+                .collect(Collectors.toMap(SqlStats.StatementSnapshot::sql, Function.identity()));
+
+        SqlStats.StatementSnapshot genres = statements.get("SELECT * FROM genres WHERE genre_id < ?");
+        assertEquals(2, genres.count());
+        assertEquals(9, genres.rows());
+        assertTrue(genres.maxMs() > 0 && genres.maxMs() <= genres.totalMs());
+        assertEquals(2, statements.get("SELECT * FROM ratings WHERE rating_id IN (?)").rows());
+        SqlStats.StatementSnapshot insert = statements.get(
+                "INSERT INTO users (name, login, email, birthday) VALUES (?)");
+        assertEquals(1, insert.count());
+        assertEquals(2, insert.rows());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmStorage;
+import ru.yandex.practicum.filmorate.dal.StorageBulkhead;
+import ru.yandex.practicum.filmorate.exception.BulkheadFullException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageBulkheadTest {
+
+    @Test
+    void testTransactionHoldsOnePermitForItsStorageCalls() {
+        StorageBulkhead bulkhead = new StorageBulkhead(true, 2, 1, 0, 10);
+        FilmStorage storage = mock(FilmStorage.class);
+        int[] permitsInside = new int[2];
+        when(storage.addAll(anyList())).thenAnswer(invocation -> {
+            permitsInside[1] = bulkhead.getAvailablePermits();
+            return List.of();
+        });
+        FilmStorage gated = (FilmStorage) bulkhead.postProcessAfterInitialization(storage, "filmStorage");
+        TransactionOperations transactions = (TransactionOperations) bulkhead.postProcessAfterInitialization(
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), "transactionTemplate");
+
+        transactions.executeWithoutResult(status -> {
+            permitsInside[0] = bulkhead.getAvailablePermits();
+            gated.addAll(List.of());
+        });
+
+        assertEquals(1, permitsInside[0]);
+        assertEquals(1, permitsInside[1]);
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    void testExportsHaveTheirOwnLimit() {
+        StorageBulkhead bulkhead = new StorageBulkhead(true, 2, 1, 0, 10);
+        FilmStorage storage = mock(FilmStorage.class);
+        FilmStorage gated = (FilmStorage) bulkhead.postProcessAfterInitialization(storage, "filmStorage");
+        Throwable[] secondExport = new Throwable[1];
+        int[] callPermits = new int[1];
+        doAnswer(invocation -> {
+            callPermits[0] = bulkhead.getAvailablePermits();
+            CompletionException e = assertThrows(CompletionException.class, () -> CompletableFuture
+                    .runAsync(() -> gated.streamFilms(rs -> { }))
+                    .join());
+            secondExport[0] = e.getCause();
+            CompletableFuture.runAsync(() -> gated.findAllFilms()).join();
+            return null;
+        }).when(storage).streamFilms(any(RowCallbackHandler.class));
+
+        gated.streamFilms(rs -> { });
+
+        assertEquals(2, callPermits[0]);
+        assertInstanceOf(BulkheadFullException.class, secondExport[0]);
+        assertEquals(1, bulkhead.getAvailableExportPermits());
+        assertEquals(1, bulkhead.getRejectedCalls());
+    }
+
+    @Test
+    void testLimitsAreKeptWithinThePool() {
+        StorageBulkhead bulkhead = new StorageBulkhead(true, 10, 2, 0, 10);
+
+        assertEquals(8, bulkhead.getMaxConcurrentCalls());
+        assertEquals(2, bulkhead.getMaxConcurrentExports());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import ru.yandex.practicum.filmorate.dal.GenreStorage;
+import ru.yandex.practicum.filmorate.dal.StorageMetrics;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageMetricsTest {
+
+    @Test
+    void testRecordsCallsAndRowsPerMethod() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        StorageMetrics metrics = new StorageMetrics(beanFactory.getBeanProvider(MeterRegistry.class));
+
+        GenreStorage target = mock(GenreStorage.class);
+        List<Genre> genres = List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build());
+        when(target.findAllGenres()).thenReturn(genres);
+        when(target.findGenreById(3)).thenReturn(Optional.empty());
+        when(target.containsGenre(1)).thenReturn(true);
+        GenreStorage storage = (GenreStorage) metrics.postProcessAfterInitialization(target, "genreStorage");
+
+        assertSame(genres, storage.findAllGenres());
+        storage.findAllGenres();
+        assertTrue(storage.findGenreById(3).isEmpty());
+        assertTrue(storage.containsGenre(1));
+
+        assertEquals(2, registry.get(StorageMetrics.CALLS).tag("method", "findAllGenres").timer().count());
+        assertEquals(4.0, registry.get(StorageMetrics.ROWS).tag("method", "findAllGenres").summary().totalAmount());
+        assertEquals(0.0, registry.get(StorageMetrics.ROWS).tag("method", "findGenreById").summary().totalAmount());
+        assertEquals(1, registry.get(StorageMetrics.CALLS).tag("method", "containsGenre").timer().count());
+        assertNull(registry.find(StorageMetrics.ROWS).tag("method", "containsGenre").summary());
+    }
+}
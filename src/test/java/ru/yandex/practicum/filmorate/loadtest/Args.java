@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code key=value} command-line options of the load-test tools.
+ */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Args(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value.replace("_", "")) : defaultValue;
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        return value != null ? Long.parseLong(value.replace("_", "")) : defaultValue;
+    }
+}
@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Bulk-loads a synthetic data set into an H2 database with the application schema:
+ * users, films with 0-3 genres, likes and friendships.
+ * <ul>
+ *     <li>Users and films are generated inside H2 from {@code SYSTEM_RANGE}.</li>
+ *     <li>Likes are skewed towards low film ids, so the popular list has a clear head.</li>
+ *     <li>Most friends of a user lie within {@value #FRIEND_WINDOW} ids of them, so nearby
+ *     users have common friends.</li>
+ * </ul>
+ * Run with {@code mvn -P loadtest verify -DskipTests
+ * -Dloadtest.class=ru.yandex.practicum.filmorate.loadtest.DataGenerator
+ * -Dloadtest.args="db=jdbc:h2:file:./db/loadtest users=1000000 films=200000 likes=20000000 friendships=30000000"}.
+ */
+public class DataGenerator {
+
+    static final int FRIEND_WINDOW = 1000;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final double LIKE_SKEW = 2.0;
+
+    private static final double LOCAL_FRIENDS = 0.8;
+
+    private final Connection connection;
+
+    private final SplittableRandom random;
+
+    private DataGenerator(Connection connection, long seed) {
+        this.connection = connection;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Args options = new Args(args);
+        String db = options.get("db", "jdbc:h2:file:./db/loadtest");
+        int users = options.getInt("users", 100_000);
+        int films = options.getInt("films", 20_000);
+        long likes = options.getLong("likes", 2_000_000);
+        long friendships = options.getLong("friendships", 3_000_000);
+
+        try (Connection connection = DriverManager.getConnection(db, "sa", "password")) {
+            DataGenerator generator = new DataGenerator(connection, options.getLong("seed", 1));
+            generator.createSchema();
+            long started = System.nanoTime();
+            generator.generateUsers(users);
+            generator.generateFilms(films);
+            long likeRows = generator.generateLikes(users, films, likes);
+            long friendRows = generator.generateFriendships(users, friendships);
+            generator.finish();
+            System.out.printf("%s: %d users, %d films, %d likes, %d friendships in %.1f s%n", db, users, films,
+                    likeRows, friendRows, (System.nanoTime() - started) / 1e9);
+        }
+    }
+
+    private void createSchema() throws SQLException {
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("data.sql"));
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+            resultSet.next();
+            if (resultSet.getLong(1) > 0) {
+                throw new IllegalStateException("Database is not empty, generate into a new one");
+            }
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    private void generateUsers(int users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (name, login, email, birthday) "
+                        + "SELECT 'User ' || x, 'user' || x, 'user' || x || '@load.test', "
+                        + "DATEADD(DAY, -MOD(x * 7919, 20000), DATE '2005-01-01') FROM SYSTEM_RANGE(1, ?)")) {
+            statement.setInt(1, users);
+            statement.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    private void generateFilms(int films) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO films (name, description, release_date, duration, mpa_rating_id) "
+                        + "SELECT 'Film ' || x, 'Synthetic film number ' || x || ' for load testing', "
+                        + "DATEADD(DAY, -MOD(x * 104729, 36500), DATE '2024-01-01'), 60 + MOD(x, 120), "
+                        + "1 + MOD(x, 5) FROM SYSTEM_RANGE(1, ?)")) {
+            statement.setInt(1, films);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO films_genres (film_id, genre_id) "
+                        + "SELECT f.x, 1 + MOD(f.x + g.x * 2, 6) FROM SYSTEM_RANGE(1, ?) f, SYSTEM_RANGE(0, 2) g "
+                        + "WHERE g.x < MOD(f.x, 4)")) {
+            statement.setInt(1, films);
+            statement.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    private long generateLikes(int users, int films, long likes) throws SQLException {
+        // Packed as film << 32 | user and sorted, so rows arrive in primary key order
+        long[] pairs = new long[1024];
+        int size = 0;
+        for (int user = 1; user <= users; user++) {
+            int[] liked = distinct(Math.min(films, perNode(likes, users)),
+                    () -> 1 + (int) (films * Math.pow(random.nextDouble(), LIKE_SKEW)));
+            if (size + liked.length > pairs.length) {
+                pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, size + liked.length));
+            }
+            for (int film : liked) {
+                pairs[size++] = (long) film << 32 | user;
+            }
+        }
+        Arrays.parallelSort(pairs, 0, size);
+
+        int[] likeCounts = new int[films + 1];
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS FILM_LIKES_USER_INDEX");
+        }
+        try (PairWriter writer = new PairWriter("INSERT INTO film_likes (film_id, liked_user_id)")) {
+            for (int i = 0; i < size; i++) {
+                int film = (int) (pairs[i] >>> 32);
+                writer.write(film, (int) pairs[i]);
+                likeCounts[film]++;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX FILM_LIKES_USER_INDEX ON film_likes (liked_user_id, film_id)");
+        }
+        try (PairWriter writer = new PairWriter("MERGE INTO films (film_id, like_count) KEY (film_id)")) {
+            for (int film = 1; film <= films; film++) {
+                writer.write(film, likeCounts[film]);
+            }
+        }
+        return size;
+    }
+
+    private long generateFriendships(int users, long friendships) throws SQLException {
+        long rows = 0;
+        try (PairWriter writer = new PairWriter("INSERT INTO friendship (user_id, friend_id)")) {
+            for (int user = 1; user <= users; user++) {
+                int self = user;
+                int[] friends = distinct(Math.min(users - 1, perNode(friendships, users)), () -> {
+                    int friend = random.nextDouble() < LOCAL_FRIENDS
+                            ? self + random.nextInt(-FRIEND_WINDOW, FRIEND_WINDOW + 1)
+                            : 1 + random.nextInt(users);
+                    return friend < 1 || friend > users || friend == self ? 0 : friend;
+                });
+                for (int friend : friends) {
+                    writer.write(user, friend);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void finish() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            statement.execute("ANALYZE");
+        }
+        connection.commit();
+    }
+
+    /**
+     * Number of rows for one user: uniform around the average, so the total matches on average.
+     */
+    private int perNode(long total, int nodes) {
+        long average = total / nodes;
+        return (int) random.nextLong(average * 2 + 1);
+    }
+
+    /**
+     * Draws {@code count} ids and drops duplicates and zeros, so a user may get a few rows less.
+     */
+    private int[] distinct(int count, IntSupplier ids) {
+        int[] drawn = new int[count];
+        for (int i = 0; i < count; i++) {
+            drawn[i] = ids.getAsInt();
+        }
+        Arrays.sort(drawn);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (drawn[i] != 0 && (size == 0 || drawn[size - 1] != drawn[i])) {
+                drawn[size++] = drawn[i];
+            }
+        }
+        return Arrays.copyOf(drawn, size);
+    }
+
+    /**
+     * Writes rows of two integer columns {@value #BATCH_SIZE} at a time through a single
+     * {@code SELECT * FROM UNNEST(?, ?)}, which H2 executes far faster than a JDBC batch.
+     */
+    private final class PairWriter implements AutoCloseable {
+
+        private final PreparedStatement statement;
+
+        private final Integer[] first = new Integer[BATCH_SIZE];
+
+        private final Integer[] second = new Integer[BATCH_SIZE];
+
+        private int size;
+
+        PairWriter(String insertInto) throws SQLException {
+            statement = connection.prepareStatement(insertInto + " SELECT * FROM UNNEST(?, ?)");
+        }
+
+        void write(int a, int b) throws SQLException {
+            first[size] = a;
+            second[size++] = b;
+            if (size == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            statement.close();
+        }
+
+        private void flush() throws SQLException {
+            if (size == 0) {
+                return;
+            }
+            statement.setArray(1, connection.createArrayOf("INTEGER", Arrays.copyOf(first, size)));
+            statement.setArray(2, connection.createArrayOf("INTEGER", Arrays.copyOf(second, size)));
+            statement.executeUpdate();
+            connection.commit();
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of latencies in nanoseconds. Not thread-safe: every worker records into its own
+ * instance and the instances are merged once the run is over.
+ */
+final class Latencies {
+
+    private long[] values = new long[1024];
+
+    private int size;
+
+    private boolean sorted;
+
+    void add(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        sorted = false;
+    }
+
+    void addAll(Latencies other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        sorted = false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Nearest-rank percentile in milliseconds, {@code quantile} in (0, 1].
+     */
+    double percentileMillis(double quantile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(quantile * size) - 1;
+        return values[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load against the real endpoints. Each of {@code concurrency} workers picks an
+ * endpoint by the weights in {@code mix}, sends it, waits for the response and repeats until
+ * {@code seconds} have passed; latencies of the first {@code warmup} seconds are dropped.
+ * Prints throughput and p50/p95/p99/p999 per endpoint.
+ * <p>
+ * With {@code db=<jdbc url>} the application is started in this JVM on that database (see
+ * {@link DataGenerator}); with {@code url=<base url>} an already running instance is used.
+ * Run with {@code mvn -P loadtest verify -DskipTests
+ * -Dloadtest.class=ru.yandex.practicum.filmorate.loadtest.LoadDriver
+ * -Dloadtest.args="db=jdbc:h2:file:./db/loadtest users=100000 films=20000 concurrency=64 seconds=60"}.
+ */
+public class LoadDriver {
+
+    private static final String DEFAULT_MIX = "popular:30,film:40,common:20,like:10";
+
+    private final HttpClient client;
+
+    private final String base;
+
+    private final Endpoint[] endpoints;
+
+    private final int[] weights;
+
+    private final int users;
+
+    private final int films;
+
+    private LoadDriver(String base, String mix, int users, int films) {
+        this.base = base;
+        this.users = users;
+        this.films = films;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        String[] parts = mix.split(",");
+        endpoints = new Endpoint[parts.length];
+        weights = new int[parts.length];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] part = parts[i].split(":");
+            endpoints[i] = Endpoint.valueOf(part[0].toUpperCase());
+            total += Integer.parseInt(part[1]);
+            weights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Args options = new Args(args);
+        String db = options.get("db", null);
+        ConfigurableApplicationContext context = null;
+        String base = options.get("url", "http://localhost:8080");
+        if (db != null) {
+            context = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .bannerMode(Banner.Mode.OFF)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=" + db,
+                            "--spring.threads.virtual.enabled=" + options.get("virtual-threads", "false"),
+                            "--logging.level.root=WARN",
+                            "--logging.level.org.springframework.jdbc=WARN");
+            base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        LoadDriver driver = new LoadDriver(base, options.get("mix", DEFAULT_MIX),
+                options.getInt("users", 100_000), options.getInt("films", 20_000));
+        driver.run(options.getInt("concurrency", 64), options.getInt("seconds", 60),
+                options.getInt("warmup", 10), options.getLong("seed", 1));
+        if (context != null) {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    private void run(int concurrency, int seconds, int warmup, long seed) throws Exception {
+        System.out.printf("%s: %d workers, %d s (+%d s warm-up)%n", base, concurrency, seconds, warmup);
+        long measureFrom = System.nanoTime() + warmup * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<Worker>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(seeds.split());
+                futures.add(executor.submit(() -> worker.run(measureFrom, deadline)));
+            }
+        }
+
+        Latencies[] latencies = new Latencies[endpoints.length];
+        int[] errors = new int[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            latencies[i] = new Latencies();
+        }
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            for (int i = 0; i < endpoints.length; i++) {
+                latencies[i].addAll(worker.latencies[i]);
+                errors[i] += worker.errors[i];
+            }
+        }
+
+        System.out.printf("%-10s %9s %9s %8s %8s %8s %8s %8s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        Latencies all = new Latencies();
+        int allErrors = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            print(endpoints[i].name().toLowerCase(), latencies[i], errors[i], seconds);
+            all.addAll(latencies[i]);
+            allErrors += errors[i];
+        }
+        print("total", all, allErrors, seconds);
+    }
+
+    private static void print(String name, Latencies latencies, int errors, int seconds) {
+        System.out.printf("%-10s %9d %9.0f %8.1f %8.1f %8.1f %8.1f %8.1f %7d%n", name, latencies.size(),
+                (double) latencies.size() / seconds, latencies.percentileMillis(0.50),
+                latencies.percentileMillis(0.95), latencies.percentileMillis(0.99),
+                latencies.percentileMillis(0.999), latencies.percentileMillis(1.0), errors);
+    }
+
+    private enum Endpoint {
+        POPULAR,
+        FILM,
+        COMMON,
+        LIKE
+    }
+
+    private final class Worker {
+
+        private final SplittableRandom random;
+
+        private final Latencies[] latencies = new Latencies[endpoints.length];
+
+        private final int[] errors = new int[endpoints.length];
+
+        private Worker(SplittableRandom random) {
+            this.random = random;
+            for (int i = 0; i < endpoints.length; i++) {
+                latencies[i] = new Latencies();
+            }
+        }
+
+        Worker run(long measureFrom, long deadline) {
+            long now = System.nanoTime();
+            while (now < deadline) {
+                int endpoint = pick();
+                boolean failed;
+                try {
+                    int status = client.send(request(endpoints[endpoint]), HttpResponse.BodyHandlers.discarding())
+                            .statusCode();
+                    failed = status >= 400;
+                } catch (Exception e) {
+                    failed = true;
+                }
+                long finished = System.nanoTime();
+                if (now >= measureFrom && finished <= deadline) {
+                    latencies[endpoint].add(finished - now);
+                    if (failed) {
+                        errors[endpoint]++;
+                    }
+                }
+                now = finished;
+            }
+            return this;
+        }
+
+        private int pick() {
+            int value = random.nextInt(weights[weights.length - 1]);
+            int endpoint = 0;
+            while (value >= weights[endpoint]) {
+                endpoint++;
+            }
+            return endpoint;
+        }
+
+        private HttpRequest request(Endpoint endpoint) {
+            return switch (endpoint) {
+                case POPULAR -> get("/films/popular?count=" + (10 + random.nextInt(41)));
+                case FILM -> get("/films/" + (1 + random.nextInt(films)));
+                case COMMON -> {
+                    // Neighbours by id share friends, see DataGenerator
+                    int user = 1 + random.nextInt(users);
+                    int other = Math.clamp(user + random.nextInt(-DataGenerator.FRIEND_WINDOW / 10,
+                            DataGenerator.FRIEND_WINDOW / 10 + 1), 1, users);
+                    yield get("/users/" + user + "/friends/common/" + other);
+                }
+                case LIKE -> HttpRequest.newBuilder(URI.create(base + "/films/" + (1 + random.nextInt(films))
+                                + "/like/" + (1 + random.nextInt(users))))
+                        .PUT(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            };
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+        }
+    }
+}
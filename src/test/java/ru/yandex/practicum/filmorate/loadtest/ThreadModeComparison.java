@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Starts the application on an in-memory database once per thread mode and drives the same
+ * like/popular mix (80% new likes, 20% {@code GET /films/popular}) at high concurrency,
+ * printing throughput and latency percentiles for each mode.
+ * Run with {@code mvn -P loadtest verify -DskipTests -Dloadtest.args="<requests> <concurrency>"}.
+ */
+public class ThreadModeComparison {
+
+    private static final int USERS = 2_000;
+
+    private static final int FILMS = 200;
+
+    private static final int SEED_CHUNK = 500;
+
+    private static final int POPULAR_EVERY = 5;
+
+    private final HttpClient client;
+
+    private final int requests;
+
+    private final int concurrency;
+
+    private ThreadModeComparison(int requests, int concurrency) {
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        if (args.length > 2) {
+            new ThreadModeComparison(requests, concurrency).run(Mode.valueOf(args[2]));
+            System.exit(0);
+        }
+
+        System.out.printf("%d requests, %d in flight, %d%% likes%n", requests, concurrency,
+                100 - 100 / POPULAR_EVERY);
+        System.out.printf("%-26s %10s %8s %8s %8s %8s %6s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "503");
+        // One JVM per mode, so that no mode runs on code already warmed up by another
+        for (Mode mode : Mode.values()) {
+            Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-classpath", System.getProperty("java.class.path"), ThreadModeComparison.class.getName(),
+                    String.valueOf(requests), String.valueOf(concurrency), mode.name())
+                    .inheritIO()
+                    .start();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException(mode + " run failed");
+            }
+        }
+    }
+
+    private void run(Mode mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.threads.virtual.enabled=" + mode.virtualThreads,
+                        "--filmorate.bulkhead.enabled=" + mode.bulkhead,
+                        "--filmorate.likes.write-behind.enabled=false",
+                        "--logging.level.root=ERROR",
+                        "--logging.level.org.springframework.jdbc=ERROR")) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            seed(base);
+            // Warm-up on a disjoint range of (film, user) pairs so every measured like is new
+            drive(base, requests / 2, requests);
+            Result result = drive(base, requests, 0);
+            System.out.printf("%-26s %10.0f %8.1f %8.1f %8.1f %8d %6d%n", mode.title, result.throughput(),
+                    result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+                    result.errors(), result.rejected());
+        }
+    }
+
+    private void seed(String base) throws Exception {
+        for (int from = 0; from < USERS; from += SEED_CHUNK) {
+            post(base + "/users/batch", IntStream.range(from, from + SEED_CHUNK)
+                    .mapToObj(i -> "{\"login\":\"user" + i + "\",\"email\":\"user" + i
+                            + "@load.test\",\"birthday\":\"1990-01-01\"}")
+                    .collect(Collectors.joining(",", "[", "]")));
+        }
+        post(base + "/films/batch", IntStream.range(0, FILMS)
+                .mapToObj(i -> "{\"name\":\"Film " + i + "\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\","
+                        + "\"duration\":100,\"mpa\":{\"id\":1},\"genres\":[{\"id\":" + (i % 6 + 1) + "}]}")
+                .collect(Collectors.joining(",", "[", "]")));
+    }
+
+    private void post(String uri, String body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201 && response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private Result drive(String base, int count, int firstLike) throws InterruptedException {
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                inFlight.acquire();
+                int request = i;
+                executor.execute(() -> {
+                    try {
+                        HttpRequest httpRequest = request % POPULAR_EVERY == 0
+                                ? HttpRequest.newBuilder(URI.create(base + "/films/popular?count=10")).GET().build()
+                                : like(base, firstLike + request);
+                        long start = System.nanoTime();
+                        int status = client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        latencies[request] = System.nanoTime() - start;
+                        if (status == 503) {
+                            rejected.incrementAndGet();
+                        } else if (status >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors.get(), rejected.get());
+    }
+
+    private static HttpRequest like(String base, int pair) {
+        int filmId = pair % FILMS + 1;
+        int userId = pair / FILMS % USERS + 1;
+        return HttpRequest.newBuilder(URI.create(base + "/films/" + filmId + "/like/" + userId))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private enum Mode {
+        PLATFORM("platform threads", false, true),
+        VIRTUAL("virtual threads + bulkhead", true, true),
+        VIRTUAL_UNGATED("virtual threads, no gate", true, false);
+
+        private final String title;
+
+        private final boolean virtualThreads;
+
+        private final boolean bulkhead;
+
+        Mode(String title, boolean virtualThreads, boolean bulkhead) {
+            this.title = title;
+            this.virtualThreads = virtualThreads;
+            this.bulkhead = bulkhead;
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long elapsedNanos, int errors, int rejected) {
+
+        double throughput() {
+            return sortedLatencies.length * 1e9 / elapsedNanos;
+        }
+
+        double percentile(double quantile) {
+            int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}